@@ -0,0 +1,48 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fixed, repeatable positions for the benchmarks.  Each board size gets an opening, a
+ * middle game and an endgame position built from seeded random moves that never end the
+ * game, so every benchmark sees the same squares on every run.
+ */
+final class BenchmarkPositions {
+
+    private BenchmarkPositions() {
+    }
+
+    // 3 in a row on 3x3, 4 on 4x4 and 5x5, 5 from 6x6 up
+    static int winLength(int size) {
+        return size == 3 ? 3 : size <= 5 ? 4 : 5;
+    }
+
+    static BackEnd create(String engine, int size) {
+        int winLength = winLength(size);
+        return engine.equals("bitboard") ? new BitBoard(size, size, winLength) : new BackEnd(size, size, winLength);
+    }
+
+    // fills the share of squares given by phase: opening 10%, midgame 40%, endgame 70%
+    static void fill(BackEnd board, String phase) {
+        int size = board.getNumRows();
+        int cells = size * size;
+        double share = phase.equals("opening") ? 0.1 : phase.equals("midgame") ? 0.4 : 0.7;
+        int target = Math.max(1, (int) (cells * share));
+        SplittableRandom random = new SplittableRandom(31L * size + phase.hashCode());
+
+        board.setPlayer('x');
+        for (int attempts = 0; board.getMarkCount() < target && attempts < cells * 100; attempts++) {
+            int cell = random.nextInt(cells);
+            int row = cell / size;
+            int col = cell % size;
+            if (!board.placeMark(row, col)) {
+                continue;
+            }
+            if (board.checkForWin()) {
+                board.clearMark(row, col);
+                continue;
+            }
+            board.changePlayer();
+        }
+    }
+}
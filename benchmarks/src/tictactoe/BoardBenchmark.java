@@ -0,0 +1,89 @@
+package tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board operations for both engines across board sizes and game phases.  Run with
+ * -prof gc to see gc.alloc.rate.norm per operation, AllocationTest asserts the move path
+ * allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"3", "4", "5", "6", "7", "8"})
+    public int size;
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+
+    @Param({"char", "bitboard"})
+    public String engine;
+
+    private BackEnd board;
+    private RandomPlayer randomPlayer;
+    private int[] emptySquares;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.create(engine, size);
+        BenchmarkPositions.fill(board, phase);
+        randomPlayer = new RandomPlayer(new SplittableRandom(size));
+
+        char[][] squares = board.getBoard();
+        emptySquares = new int[size * size - board.getMarkCount()];
+        int n = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (squares[cell / size][cell % size] == '-') {
+                emptySquares[n++] = cell;
+            }
+        }
+    }
+
+    // placeMark includes the incremental win check, clearMark puts the position back
+    @Benchmark
+    public boolean placeMark() {
+        int cell = emptySquares[next];
+        next = next + 1 == emptySquares.length ? 0 : next + 1;
+        boolean placed = board.placeMark(cell / size, cell % size);
+        board.clearMark(cell / size, cell % size);
+        return placed;
+    }
+
+    // one playout step: pick a random legal move, make it and take it back
+    @Benchmark
+    public int randomMove() {
+        int cell = randomPlayer.selectMove(board);
+        board.placeMark(cell / size, cell % size);
+        board.clearMark(cell / size, cell % size);
+        return cell;
+    }
+
+    @Benchmark
+    public boolean checkForWin() {
+        return board.checkForWin();
+    }
+
+    @Benchmark
+    public boolean isBoardFull() {
+        return board.isBoardFull();
+    }
+}
@@ -0,0 +1,87 @@
+package tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computer move selection: the built in heuristic and the alpha-beta search at a fixed
+ * depth, across board sizes and game phases.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComputerMoveBenchmark {
+
+    @Param({"3", "4", "5", "6", "7", "8"})
+    public int size;
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+
+    private BackEnd board;
+
+    /**
+     * Search kept in its own state so only the search benchmark pays for clearing the
+     * table before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class SearchState {
+
+        @Param({"4"})
+        public int searchDepth;
+
+        AlphaBetaSearch search;
+
+        @Setup
+        public void setUp() {
+            // the depth limit ends the search, the time budget never does
+            search = new AlphaBetaSearch(TimeUnit.HOURS.toMillis(1), new TranspositionTable(16));
+            search.setMaxDepth(searchDepth);
+        }
+
+        // every search starts cold, otherwise later invocations just read the table
+        @Setup(Level.Invocation)
+        public void clearTable() {
+            search.getTable().clear();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.create("bitboard", size);
+        BenchmarkPositions.fill(board, phase);
+    }
+
+    // cost of the copy taken by the heuristic benchmark, subtract it from that result
+    @Benchmark
+    public BackEnd copyBaseline() {
+        return board.copy();
+    }
+
+    @Benchmark
+    public BackEnd computerPlaceMark() {
+        BackEnd copy = board.copy();
+        copy.computerPlaceMark();
+        return copy;
+    }
+
+    @Benchmark
+    public int alphaBetaSearch(SearchState state) {
+        return state.search.selectMove(board);
+    }
+}
@@ -0,0 +1,68 @@
+package tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for the Lazy SMP search to reach a fixed depth from the opening, by thread count.
+ * Divide the 1 thread score by the others for the speedup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({"4", "5"})
+    public int size;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    @Param({"8"})
+    public int searchDepth;
+
+    private BackEnd board;
+    private ParallelSearch search;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.create("bitboard", size);
+        BenchmarkPositions.fill(board, "opening");
+        // the depth limit ends the search, the time budget never does
+        search = new ParallelSearch(TimeUnit.HOURS.toMillis(1), threads, new TranspositionTable(20));
+        search.setMaxDepth(searchDepth);
+    }
+
+    // every search starts cold, otherwise later invocations just read the table
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        search.getTable().clear();
+    }
+
+    // every trial builds a search with its own helper threads
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public int parallelSearch() {
+        return search.selectMove(board);
+    }
+}
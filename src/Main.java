@@ -1,10 +0,0 @@
-/**
- * Initializes match class
- * @author Colin Flueck
- */
-class Main {
-
-    public static void main(String[] args) {
-        new Match();
-    }
-}
\ No newline at end of file
@@ -0,0 +1,364 @@
+package tictactoe;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Search based computer player.  Negamax with alpha-beta pruning and iterative deepening
+ * under a time budget, so bigger boards still answer within a fixed latency.  Moves are
+ * tried center and corners first, then by distance from the center, with two killer moves
+ * per ply moved to the front.  Positions reached through different move orders or by a
+ * rotation or reflection share one entry in the transposition table.  Positions at the
+ * depth limit are scored by a ThreatEvaluator that follows the search board's moves.
+ * Nodes searched and depth reached are kept for the last move.
+ */
+class AlphaBetaSearch implements Player {
+
+    // scores at or above WIN_SCORE - cells are forced wins, shorter wins score higher
+    public static final int WIN_SCORE = 1_000_000;
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    // deeper than any game can last, used to recognize win scores
+    private static final int MAX_PLY = 256;
+
+    // how many nodes are searched between checks of the clock
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    // 2^20 slots, 16 MB
+    private static final int DEFAULT_TABLE_BITS = 20;
+
+    private final long timeBudgetMillis;
+    private final TranspositionTable table;
+    private int maxDepth = Integer.MAX_VALUE;
+    private int depthOffset;
+    private AtomicBoolean stopSignal;
+    private boolean managesTable = true;
+    private boolean recordsMetrics = true;
+
+    // scores the leaves of depth limited searches, kept in step with position
+    private final ThreatEvaluator evaluator = new ThreatEvaluator();
+    private boolean evaluates = true;
+
+    private BackEnd position;
+    private int numColumns;
+    private int winLength;
+    private int[] staticOrder;
+    private int[][] moveBuffers;
+    private int[][] killers;
+
+    private long deadline;
+    private boolean timeUp;
+    private int rootBestMove;
+
+    private long nodesSearched;
+    private int depthReached;
+    private int bestScore;
+
+    public AlphaBetaSearch(long timeBudgetMillis) {
+        this(timeBudgetMillis, new TranspositionTable(DEFAULT_TABLE_BITS));
+    }
+
+    public AlphaBetaSearch(long timeBudgetMillis, TranspositionTable table) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.table = table;
+    }
+
+    @Override
+    public int selectMove(BackEnd board) {
+        if (board.getNumRows() * board.getNumColumns() > TranspositionTable.MAX_CELLS) {
+            throw new IllegalArgumentException("boards of up to " + TranspositionTable.MAX_CELLS + " squares");
+        }
+        long start = System.nanoTime();
+        // the scratch board is reused from move to move so searching allocates nothing
+        if (position == null || !position.hasSameShape(board)) {
+            position = board.copy();
+            position.setMoveListener(evaluates ? evaluator : null);
+        } else {
+            position.copyFrom(board);
+        }
+        prepare(board.getNumRows(), board.getNumColumns(), board.getWinLength());
+        if (managesTable) {
+            table.newSearch();
+        }
+
+        nodesSearched = 0;
+        depthReached = 0;
+        bestScore = 0;
+        timeUp = false;
+        deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+
+        int cells = board.getNumRows() * board.getNumColumns();
+        int emptySquares = cells - board.getMarkCount();
+        if (board.checkForWin() || emptySquares == 0) {
+            return -1;
+        }
+
+        // fall back to the first ordered move if even depth 1 runs out of time
+        rootBestMove = -1;
+        generateMoves(0, -1);
+        int bestMove = moveBuffers[0][0];
+
+        for (int depth = Math.min(1 + depthOffset, emptySquares); depth <= Math.min(emptySquares, maxDepth); depth++) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (timeUp) {
+                break;
+            }
+            bestMove = rootBestMove;
+            bestScore = score;
+            depthReached = depth;
+            if (Math.abs(score) >= WIN_SCORE - cells) {
+                break;
+            }
+        }
+        Metrics metrics = Metrics.global();
+        if (recordsMetrics) {
+            metrics.recordMove(System.nanoTime() - start, nodesSearched);
+        }
+        metrics.recordWinChecks(position.drainWinChecks());
+        return bestMove;
+    }
+
+    public long getNodesSearched() {
+        return nodesSearched;
+    }
+
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    @Override
+    public int getLastScore() {
+        return bestScore;
+    }
+
+    // stops iterative deepening at this depth even with time left, for repeatable benchmarks
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Starts iterative deepening this many plies deeper, so helper threads sharing a table
+     * work ahead of the main search instead of repeating it.
+     */
+    public void setDepthOffset(int depthOffset) {
+        this.depthOffset = depthOffset;
+    }
+
+    // the search also stops, like when time runs out, once another thread sets this
+    public void setStopSignal(AtomicBoolean stopSignal) {
+        this.stopSignal = stopSignal;
+    }
+
+    // when false the table is never cleared or aged here, for searches that share a table
+    public void setManagesTable(boolean managesTable) {
+        this.managesTable = managesTable;
+    }
+
+    /**
+     * Turns the threat evaluation at the search horizon on or off, off scores every
+     * unfinished position 0.
+     */
+    public void setEvaluation(boolean evaluates) {
+        this.evaluates = evaluates;
+        position = null;
+    }
+
+    // false for searches run as part of a bigger one, which records the move itself
+    public void setRecordsMetrics(boolean recordsMetrics) {
+        this.recordsMetrics = recordsMetrics;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        nodesSearched++;
+        if ((nodesSearched % TIME_CHECK_INTERVAL) == 0
+                && (System.nanoTime() > deadline || (stopSignal != null && stopSignal.get()))) {
+            timeUp = true;
+        }
+        if (timeUp) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluates ? evaluator.evaluate(position.getCurrentPlayerMark()) : 0;
+        }
+
+        int symmetry = position.getCanonicalSymmetry();
+        long key = position.getCanonicalHash() ^ (position.getCurrentPlayerMark() == 'o' ? Zobrist.SIDE_TO_MOVE : 0);
+        long entry = table.probe(key);
+        int hashMove = -1;
+        if (entry != TranspositionTable.NO_ENTRY) {
+            int stored = TranspositionTable.move(entry);
+            hashMove = stored == -1 ? -1 : position.getZobrist().unmap(symmetry, stored);
+            // the root always searches so it has a move to return
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int count = generateMoves(ply, hashMove);
+        int[] moves = moveBuffers[ply];
+        int best = -INFINITY;
+        int bestMove = -1;
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int row = move / numColumns;
+            int col = move % numColumns;
+
+            position.placeMark(row, col);
+            int score;
+            if (position.checkForWin()) {
+                score = WIN_SCORE - ply - 1;
+            } else if (position.isBoardFull()) {
+                score = 0;
+            } else {
+                position.changePlayer();
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                position.changePlayer();
+            }
+            position.clearMark(row, col);
+
+            if (timeUp) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                storeKiller(ply, move);
+                break;
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+        int storedMove = bestMove == -1 ? -1 : position.getZobrist().map(symmetry, bestMove);
+        table.store(key, depth, bound, toTable(best, ply), storedMove);
+        return best;
+    }
+
+    // win scores are stored relative to the node so they stay valid at any ply
+    private int toTable(int score, int ply) {
+        if (score >= WIN_SCORE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -WIN_SCORE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private int fromTable(int score, int ply) {
+        if (score >= WIN_SCORE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -WIN_SCORE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    // fills moveBuffers[ply] with the empty squares, the table move, killers and the previous best root move first
+    private int generateMoves(int ply, int hashMove) {
+        int[] moves = moveBuffers[ply];
+        int empty = position.getEmptyCount();
+        int count = 0;
+        // the static order puts the center first, so walk it and stop once every empty square is found
+        for (int i = 0; count < empty; i++) {
+            int cell = staticOrder[i];
+            if (position.isEmpty(cell)) {
+                moves[count++] = cell;
+            }
+        }
+        if (ply == 0) {
+            promote(moves, count, rootBestMove);
+        } else {
+            promote(moves, count, killers[ply][1]);
+            promote(moves, count, killers[ply][0]);
+            promote(moves, count, hashMove);
+        }
+        return count;
+    }
+
+    // moves a legal move to the front, keeping the order of the others
+    private static void promote(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    private void storeKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    // reuses buffers between moves, rebuilding them (and clearing the table) only when the game changes
+    private void prepare(int numRows, int numColumns, int winLength) {
+        int cells = numRows * numColumns;
+        if (staticOrder == null || staticOrder.length != cells || this.numColumns != numColumns
+                || this.winLength != winLength) {
+            this.numColumns = numColumns;
+            this.winLength = winLength;
+            if (managesTable) {
+                table.clear();
+            }
+            staticOrder = orderSquares(numRows, numColumns);
+            moveBuffers = new int[cells + 1][cells];
+            killers = new int[cells + 1][2];
+        }
+        for (int[] killer : killers) {
+            killer[0] = -1;
+            killer[1] = -1;
+        }
+    }
+
+    // center first, then the corners, then everything else by distance from the center
+    private static int[] orderSquares(int numRows, int numColumns) {
+        int cells = numRows * numColumns;
+        long[] keyed = new long[cells];
+        int centerDistance = (1 - numRows % 2) + (1 - numColumns % 2);
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / numColumns;
+            int col = cell % numColumns;
+            // doubled distance keeps even sized boards in whole numbers
+            int distance = Math.abs(2 * row - (numRows - 1)) + Math.abs(2 * col - (numColumns - 1));
+            boolean corner = (row == 0 || row == numRows - 1) && (col == 0 || col == numColumns - 1);
+            int rank = distance == centerDistance ? 0 : corner ? 1 : 1 + distance;
+            keyed[cell] = ((long) rank << 32) | cell;
+        }
+        Arrays.sort(keyed);
+        int[] order = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            order[i] = (int) keyed[i];
+        }
+        return order;
+    }
+}
@@ -0,0 +1,595 @@
+package tictactoe;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Backend for tic tac toe.  Represents board as char[][], places new marks,
+ * evaluates winning conditions, and powers computer mark placement
+ * @author Colin Flueck
+ */
+class BackEnd {
+
+    private static final Logger LOG = Logger.getLogger(BackEnd.class.getName());
+
+    private int numRows;
+    private int numColumns;
+    private int winLength;
+    private char[][] board;
+    private char currentPlayerMark = 'x';
+    private int markCount;
+    private int lastMove = -1;
+    private boolean won;
+    private Player computerPlayer;
+
+    private MoveListener moveListener;
+
+    // moves played as cell << 1 | (1 for o), oldest first.  Entries from historyLength up
+    // to historyTop were taken back by undo and can be redone.
+    private int[] history;
+    private int historyLength;
+    private int historyTop;
+
+    // the empty squares are emptyCells[0] to emptyCells[emptyCount - 1], in no particular
+    // order, and the rest of the array holds the taken ones.  emptyIndex is each square's
+    // place in emptyCells, so a square moves between the two parts with one swap.
+    private int[] emptyCells;
+    private int[] emptyIndex;
+    private int emptyCount;
+
+    // win checks since the last drainWinChecks, kept here so the search loop stays thread local
+    private long winChecks;
+
+    // one zobrist hash per board symmetry, updated with every mark
+    private Zobrist zobrist;
+    private long[] hashes = new long[Zobrist.MAX_SYMMETRIES];
+
+    public BackEnd(int numRows, int numColumns) {
+        this(numRows, numColumns, Math.min(numRows, numColumns));
+    }
+
+    public BackEnd(int numRows, int numColumns, int winLength) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.winLength = winLength;
+        this.board = new char[numRows][numColumns];
+        initializeBoard(numRows, numColumns);
+    }
+
+    // copies the position (not the computer player) so a search can play on it freely
+    protected BackEnd(BackEnd other) {
+        this.numRows = other.numRows;
+        this.numColumns = other.numColumns;
+        this.winLength = other.winLength;
+        this.board = new char[numRows][];
+        for (int i = 0; i < numRows; i++) {
+            this.board[i] = other.board[i].clone();
+        }
+        this.currentPlayerMark = other.currentPlayerMark;
+        this.markCount = other.markCount;
+        this.lastMove = other.lastMove;
+        this.won = other.won;
+        this.zobrist = other.zobrist;
+        this.hashes = other.hashes.clone();
+        this.history = other.history.clone();
+        this.historyLength = other.historyLength;
+        this.historyTop = other.historyTop;
+        this.emptyCells = other.emptyCells.clone();
+        this.emptyIndex = other.emptyIndex.clone();
+        this.emptyCount = other.emptyCount;
+    }
+
+    public BackEnd copy() {
+        return new BackEnd(this);
+    }
+
+    /**
+     * Overwrites this position with other's without allocating.  Both boards must be the
+     * same class and size, see hasSameShape.
+     */
+    public void copyFrom(BackEnd other) {
+        for (int i = 0; i < numRows; i++) {
+            System.arraycopy(other.board[i], 0, board[i], 0, numColumns);
+        }
+        this.winLength = other.winLength;
+        this.currentPlayerMark = other.currentPlayerMark;
+        this.markCount = other.markCount;
+        this.lastMove = other.lastMove;
+        this.won = other.won;
+        this.zobrist = other.zobrist;
+        System.arraycopy(other.hashes, 0, hashes, 0, hashes.length);
+        System.arraycopy(other.history, 0, history, 0, other.historyTop);
+        historyLength = other.historyLength;
+        historyTop = other.historyTop;
+        System.arraycopy(other.emptyCells, 0, emptyCells, 0, emptyCells.length);
+        System.arraycopy(other.emptyIndex, 0, emptyIndex, 0, emptyIndex.length);
+        emptyCount = other.emptyCount;
+        if (moveListener != null) {
+            moveListener.positionReset(this);
+        }
+    }
+
+    // true when copyFrom(other) can reuse this board
+    public boolean hasSameShape(BackEnd other) {
+        return getClass() == other.getClass() && numRows == other.numRows
+                && numColumns == other.numColumns && winLength == other.winLength;
+    }
+
+    public char[][] getBoard() {
+        return board;
+    }
+
+    public char getCurrentPlayerMark() {
+        return currentPlayerMark;
+    }
+
+    public void setPlayer(char mark) {
+        currentPlayerMark = mark;
+    }
+
+    public void changePlayer() {
+        if (currentPlayerMark == 'x') {
+            currentPlayerMark = 'o';
+        } else {
+            currentPlayerMark = 'x';
+        }
+    }
+
+    // sets every square on the board to -, resizing the board if the dimensions changed
+    public void initializeBoard(int numRows, int numColumns) {
+        if (board.length != numRows || board[0].length != numColumns) {
+            this.numRows = numRows;
+            this.numColumns = numColumns;
+            board = new char[numRows][numColumns];
+        }
+        for (int i = 0; i <numRows; i++) {
+            for (int j=0; j<numColumns ;j++) {
+                board[i][j] = '-';
+            }
+        }
+        markCount = 0;
+        lastMove = -1;
+        won = false;
+        if (history == null || history.length != numRows * numColumns) {
+            history = new int[numRows * numColumns];
+            emptyCells = new int[numRows * numColumns];
+            emptyIndex = new int[numRows * numColumns];
+        }
+        historyLength = 0;
+        historyTop = 0;
+        for (int cell = 0; cell < emptyCells.length; cell++) {
+            emptyCells[cell] = cell;
+            emptyIndex[cell] = cell;
+        }
+        emptyCount = emptyCells.length;
+        zobrist = Zobrist.forSize(numRows, numColumns);
+        Arrays.fill(hashes, 0);
+        if (moveListener != null) {
+            moveListener.positionReset(this);
+        }
+    }
+
+    public void printBoard() {
+        System.out.print(this);
+    }
+
+    @Override
+    public String toString() {
+        String separator = "----".repeat(numColumns) + "-";
+        StringBuilder text = new StringBuilder(separator).append('\n');
+        for (int i=0;i<numRows;i++) {
+            text.append("| ");
+            for (int j=0;j<numColumns;j++) {
+                text.append(board[i][j]).append(" | ");
+            }
+            text.append('\n').append(separator).append('\n');
+        }
+        return text.toString();
+    }
+
+    //Winning identification methods
+    // the win state is updated by placeMark, so this only reports it
+    public boolean checkForWin() {
+        return won;
+    }
+
+    public boolean placeMark(int row, int col) {
+        if ((row < numRows) && (row > -1) && (col > -1) && (col < numColumns)) {
+            if (board[row][col] == '-') {
+                board[row][col] = currentPlayerMark;
+                markCount++;
+                lastMove = row * numColumns + col;
+                history[historyLength++] = lastMove << 1 | (currentPlayerMark == 'o' ? 1 : 0);
+                historyTop = historyLength;
+                swapEmpty(lastMove, --emptyCount);
+                updateHashes(lastMove, currentPlayerMark);
+                winChecks++;
+                if (recordMark(row, col)) {
+                    won = true;
+                }
+                if (moveListener != null) {
+                    moveListener.markPlaced(lastMove, currentPlayerMark);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes back the mark at (row, col).  Meant for undoing the most recent move during a
+     * search: the game can't continue past a win, so the board is never won afterwards.
+     * Anything that could have been redone is forgotten, as after placeMark.
+     */
+    public void clearMark(int row, int col) {
+        if (board[row][col] != '-') {
+            char mark = board[row][col];
+            int cell = row * numColumns + col;
+            updateHashes(cell, mark);
+            board[row][col] = '-';
+            markCount--;
+            swapEmpty(cell, emptyCount++);
+            forget(cell);
+            lastMove = historyLength == 0 ? -1 : history[historyLength - 1] >>> 1;
+            won = false;
+            if (moveListener != null) {
+                moveListener.markCleared(row * numColumns + col, mark);
+            }
+        }
+    }
+
+    // moves cell to emptyCells[index], and the square that was there to where cell was
+    private void swapEmpty(int cell, int index) {
+        int other = emptyCells[index];
+        int from = emptyIndex[cell];
+        emptyCells[from] = other;
+        emptyIndex[other] = from;
+        emptyCells[index] = cell;
+        emptyIndex[cell] = index;
+    }
+
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    public boolean isEmpty(int cell) {
+        return emptyIndex[cell] < emptyCount;
+    }
+
+    /**
+     * Copies the empty squares, the legal moves, into moves and returns how many there are.
+     * The order changes as marks are placed and cleared, so copy the moves before playing
+     * through them.
+     */
+    public int getLegalMoves(int[] moves) {
+        System.arraycopy(emptyCells, 0, moves, 0, emptyCount);
+        return emptyCount;
+    }
+
+    // a uniformly random empty square, or -1 on a full board
+    public int randomEmptyCell(RandomGenerator random) {
+        return emptyCount == 0 ? -1 : emptyCells[random.nextInt(emptyCount)];
+    }
+
+    // drops cell from the history, normally the last entry so this is O(1)
+    private void forget(int cell) {
+        int i = historyLength - 1;
+        while (i >= 0 && history[i] >>> 1 != cell) {
+            i--;
+        }
+        if (i >= 0) {
+            System.arraycopy(history, i + 1, history, i, historyLength - i - 1);
+            historyLength--;
+        }
+        historyTop = historyLength;
+    }
+
+    /**
+     * Takes back the last move and makes it that player's turn again.  Marks, hashes, the
+     * win state and any move listener are rolled back in place, and the move can be redone
+     * until another mark is placed.
+     * @return false if there is nothing to undo
+     */
+    public boolean undo() {
+        if (historyLength == 0) {
+            return false;
+        }
+        int entry = history[historyLength - 1];
+        int redoTop = historyTop;
+        clearMark((entry >>> 1) / numColumns, (entry >>> 1) % numColumns);
+        historyTop = redoTop;
+        currentPlayerMark = (entry & 1) == 0 ? 'x' : 'o';
+        return true;
+    }
+
+    /**
+     * Plays the last undone move again.  Afterwards it is the other player's turn unless
+     * the move ended the game, the same as after a move in Match.
+     * @return false if there is nothing to redo
+     */
+    public boolean redo() {
+        if (historyLength == historyTop) {
+            return false;
+        }
+        int entry = history[historyLength];
+        int redoTop = historyTop;
+        currentPlayerMark = (entry & 1) == 0 ? 'x' : 'o';
+        placeMark((entry >>> 1) / numColumns, (entry >>> 1) % numColumns);
+        historyTop = redoTop;
+        if (!won && !isBoardFull()) {
+            changePlayer();
+        }
+        return true;
+    }
+
+    public boolean canUndo() {
+        return historyLength > 0;
+    }
+
+    public boolean canRedo() {
+        return historyTop > historyLength;
+    }
+
+    // moves on the board, the same as getMarkCount
+    public int getHistoryLength() {
+        return historyLength;
+    }
+
+    // cell of the i-th move played, oldest first
+    public int getHistoryMove(int i) {
+        return history[i] >>> 1;
+    }
+
+    // xor-ing a key in twice takes it back out, so this serves placing and clearing
+    private void updateHashes(int cell, char mark) {
+        for (int s = 0; s < zobrist.getSymmetryCount(); s++) {
+            hashes[s] ^= zobrist.key(s, cell, mark);
+        }
+    }
+
+    public long getHash() {
+        return hashes[0];
+    }
+
+    // hash of the position as seen through one symmetry, see Zobrist
+    public long getHash(int symmetry) {
+        return hashes[symmetry];
+    }
+
+    // the same for every rotation and reflection of the position
+    public long getCanonicalHash() {
+        return hashes[getCanonicalSymmetry()];
+    }
+
+    // symmetry whose hash is the canonical one, see Zobrist.map for moving squares into that frame
+    public int getCanonicalSymmetry() {
+        int best = 0;
+        for (int s = 1; s < zobrist.getSymmetryCount(); s++) {
+            if (hashes[s] < hashes[best]) {
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    public Zobrist getZobrist() {
+        return zobrist;
+    }
+
+    /**
+     * Called by placeMark after the current player's mark is written at (row, col).
+     * Only the four lines through the new mark are walked, so this is O(winLength).
+     * @return true if the new mark completes winLength in a row
+     */
+    protected boolean recordMark(int row, int col) {
+        return countLine(row, col, 0, 1) >= winLength
+                || countLine(row, col, 1, 0) >= winLength
+                || countLine(row, col, 1, 1) >= winLength
+                || countLine(row, col, 1, -1) >= winLength;
+    }
+
+    // length of the run of matching marks through (row, col) along one direction
+    private int countLine(int row, int col, int dRow, int dCol) {
+        char mark = board[row][col];
+        int count = 1;
+        for (int r = row + dRow, c = col + dCol; inBounds(r, c) && board[r][c] == mark; r += dRow, c += dCol) {
+            count++;
+        }
+        for (int r = row - dRow, c = col - dCol; inBounds(r, c) && board[r][c] == mark; r -= dRow, c -= dCol) {
+            count++;
+        }
+        return count;
+    }
+
+    private boolean inBounds(int row, int col) {
+        return row > -1 && row < numRows && col > -1 && col < numColumns;
+    }
+
+    public boolean isBoardFull() {
+        return emptyCount == 0;
+    }
+
+    // resizes and clears the board
+    public void setGridSize(int numRows, int numColumns) {
+        initializeBoard(numRows, numColumns);
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    // number of marks in a row needed to win, takes effect on the next initializeBoard
+    public void setWinLength(int winLength) {
+        this.winLength = winLength;
+    }
+
+    // square (row * numColumns + col) of the most recent placeMark, -1 if unknown
+    public int getLastMove() {
+        return lastMove;
+    }
+
+    // win checks since the last call, for Metrics
+    public long drainWinChecks() {
+        long count = winChecks;
+        winChecks = 0;
+        return count;
+    }
+
+    public int getMarkCount() {
+        return markCount;
+    }
+
+    /**
+     * Attaches a listener told about every mark placed or cleared, replacing any earlier
+     * one.  It's reset to the current position right away.  Copies don't keep it.
+     */
+    public void setMoveListener(MoveListener moveListener) {
+        this.moveListener = moveListener;
+        if (moveListener != null) {
+            moveListener.positionReset(this);
+        }
+    }
+
+
+    // ----- Computer Methods below ----- //
+
+    // search engine or other strategy used by computerPlaceMark, null keeps the built in heuristic
+    public void setComputerPlayer(Player computerPlayer) {
+        this.computerPlayer = computerPlayer;
+    }
+
+    public Player getComputerPlayer() {
+        return computerPlayer;
+    }
+
+    public void computerPlaceMark() {
+        if (computerPlayer != null) {
+            int cell = computerPlayer.selectMove(this);
+            if (cell != -1) {
+                placeMark(cell / numColumns, cell % numColumns);
+            }
+            return;
+        }
+
+        heuristicPlaceMark(ThreadLocalRandom.current());
+    }
+
+    /**
+     * The built in strategy, for whichever player is to move: complete a line, block the
+     * opponent's line, take the center, then the corners, then any empty square.  Places
+     * nothing once the game is over, see HeuristicPlayer.
+     */
+    public void heuristicPlaceMark(RandomGenerator random) {
+        char mark = currentPlayerMark;
+        char opponent = mark == 'x' ? 'o' : 'x';
+
+        if (isBoardFull() || checkForWin()) {
+            return;
+
+            // "smart offensive play" if it has 2/3 in a row, column, or diagonal
+        } else if (computerRowPlace(mark)) {
+            log("Offensive Row Play");
+        } else if (computerColPlace(mark)) {
+            log("Offensive Column Play");
+        } else if (computerDiagonalPlace(mark)) {
+            log("Offensive Diagonal Play");
+
+            //Checks for rows, columns, and diagonals to be blocked if 2/3
+        } else if (computerRowPlace(opponent)) {
+            log("Blocks a row");
+        } else if (computerColPlace(opponent)) {
+            log("Blocks a column");
+        } else if (computerDiagonalPlace(opponent)) {
+            log("Blocks a diagonal");
+
+            //Steps for turn 1 and maybe 2
+        } else if (board[numRows / 2][numColumns / 2] == '-') {
+            placeMark(numRows / 2, numColumns / 2);
+        } else if (board[0][0] == '-') {
+            placeMark(0,0);
+
+            //for future placements, corners are prefered
+        } else if (board[0][numColumns - 1] == '-') {
+            placeMark(0, numColumns - 1);
+        } else if (board[numRows - 1][0] == '-') {
+            placeMark(numRows - 1, 0);
+        } else if (board[numRows - 1][numColumns - 1] == '-') {
+            placeMark(numRows - 1, numColumns - 1);
+
+            //random placement if it doesn't any other option
+        } else {
+            int cell = randomEmptyCell(random);
+            int comRow = cell / numColumns;
+            int comCol = cell % numColumns;
+            placeMark(comRow, comCol);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine("Player " + Character.toUpperCase(currentPlayerMark) + " rolls the dice with (" + comRow + "," + comCol + ")!");
+            }
+        }
+    }
+
+    // explains the heuristic's move, constant messages so there's nothing to build when disabled
+    private static void log(String message) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(message);
+        }
+    }
+
+    //Checks to see if a player has all but one of a row filled in
+    public boolean computerRowPlace(char mark) {
+        return computerLinePlace(mark, 0, 1);
+    }
+
+    //Checks to see if a player has all but one of a column filled in
+    public boolean computerColPlace(char mark) {
+        return computerLinePlace(mark, 1, 0);
+    }
+
+    //Checks to see if a player has all but one of a diagonal filled in
+    public boolean computerDiagonalPlace(char mark) {
+        return computerLinePlace(mark, 1, 1) || computerLinePlace(mark, 1, -1);
+    }
+
+    // walks every winLength window in one direction and fills the gap in the first window
+    // where mark has winLength - 1 squares and the last square is empty
+    private boolean computerLinePlace(char mark, int dRow, int dCol) {
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numColumns; j++) {
+                int endRow = i + dRow * (winLength - 1);
+                int endCol = j + dCol * (winLength - 1);
+                if (!inBounds(endRow, endCol)) {
+                    continue;
+                }
+                int marks = 0;
+                int gapRow = -1;
+                int gapCol = -1;
+                for (int n = 0; n < winLength; n++) {
+                    char c = board[i + dRow * n][j + dCol * n];
+                    if (c == mark) {
+                        marks++;
+                    } else if (c == '-') {
+                        gapRow = i + dRow * n;
+                        gapCol = j + dCol * n;
+                    }
+                }
+                if (marks == winLength - 1 && gapRow != -1) {
+                    placeMark(gapRow, gapCol);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
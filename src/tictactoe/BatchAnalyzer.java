@@ -0,0 +1,187 @@
+package tictactoe;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Grades positions in bulk without the GUI.  Positions are read as a stream, one per line
+ * as a flat string of the squares row by row, - for empty and x or o for a mark
+ * ("x-o-x---o"), with / between rows allowed for readability ("x-o/-x-/--o").  This is not
+ * the boxed grid BackEnd.printBoard draws.  The board size comes from the length and the
+ * side to move from the mark counts.  Each line is answered with one tab separated line, in
+ * input order:
+ *   position  row  col  score  depth  WIN|LOSS|DRAW|UNKNOWN   (for the side to move)
+ *   position  ERR  reason
+ *
+ * Lines are handed to a thread pool in batches and at most a few batches per thread are
+ * in flight, so memory stays bounded however long the input is.  Each pool thread keeps
+ * its own search and boards.
+ */
+class BatchAnalyzer {
+
+    private static final int BATCH_SIZE = 256;
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private final int winLength;
+    private final int threads;
+    private final ExecutorService pool;
+    private final ThreadLocal<AlphaBetaSearch> searches;
+    private final ThreadLocal<BackEnd[]> boards;
+
+    private long positions;
+    private long elapsedNanos;
+
+    /**
+     * @param winLength marks in a row needed to win, the same for every position
+     * @param millis time the search gets per position
+     */
+    public BatchAnalyzer(int winLength, long millis, int threads) {
+        this.winLength = winLength;
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-analyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.searches = ThreadLocal.withInitial(() -> new AlphaBetaSearch(millis, new TranspositionTable(18)));
+        // one reusable board per size, indexed by size
+        this.boards = ThreadLocal.withInitial(() -> new BackEnd[16]);
+    }
+
+    /**
+     * Reads positions until the end of in and writes one line per position to out.
+     * @return the number of positions analyzed
+     */
+    public long run(BufferedReader in, Writer out) throws IOException, InterruptedException {
+        ArrayDeque<Future<List<String>>> inFlight = new ArrayDeque<>();
+        int maxInFlight = threads * BATCHES_PER_THREAD;
+        long start = System.nanoTime();
+        positions = 0;
+
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        for (String line; (line = in.readLine()) != null; ) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            batch.add(line);
+            if (batch.size() == BATCH_SIZE) {
+                submit(batch, inFlight);
+                batch = new ArrayList<>(BATCH_SIZE);
+                // wait for the oldest batch before reading further ahead
+                while (inFlight.size() >= maxInFlight) {
+                    write(inFlight.poll(), out);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(batch, inFlight);
+        }
+        while (!inFlight.isEmpty()) {
+            write(inFlight.poll(), out);
+        }
+        out.flush();
+        elapsedNanos = System.nanoTime() - start;
+        return positions;
+    }
+
+    private void submit(List<String> batch, ArrayDeque<Future<List<String>>> inFlight) {
+        inFlight.add(pool.submit(() -> {
+            List<String> results = new ArrayList<>(batch.size());
+            for (String line : batch) {
+                results.add(analyze(line));
+            }
+            return results;
+        }));
+    }
+
+    private void write(Future<List<String>> batch, Writer out) throws IOException, InterruptedException {
+        try {
+            for (String result : batch.get()) {
+                out.write(result);
+                out.write('\n');
+                positions++;
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // the answer line for one position, safe to call from any thread
+    public String analyze(String line) {
+        String squares = line.replace("/", "");
+        int size = (int) Math.round(Math.sqrt(squares.length()));
+        if (size * size != squares.length() || size < winLength || size >= boards.get().length) {
+            return line + "\tERR\tnot a square board of at least " + winLength;
+        }
+
+        int xCount = 0;
+        int oCount = 0;
+        for (int i = 0; i < squares.length(); i++) {
+            char mark = squares.charAt(i);
+            if (mark == 'x') {
+                xCount++;
+            } else if (mark == 'o') {
+                oCount++;
+            } else if (mark != '-') {
+                return line + "\tERR\tsquares must be -, x or o";
+            }
+        }
+        if (xCount != oCount && xCount != oCount + 1) {
+            return line + "\tERR\tmark counts can't come from a game";
+        }
+
+        BackEnd board = board(size);
+        board.initializeBoard(size, size);
+        for (int cell = 0; cell < squares.length(); cell++) {
+            char mark = squares.charAt(cell);
+            if (mark != '-') {
+                board.setPlayer(mark);
+                board.placeMark(cell / size, cell % size);
+            }
+        }
+        if (board.checkForWin() || board.isBoardFull()) {
+            return line + "\tERR\tgame is over";
+        }
+        board.setPlayer(xCount == oCount ? 'x' : 'o');
+
+        AlphaBetaSearch search = searches.get();
+        int move = search.selectMove(board);
+        int score = search.getLastScore();
+        int cells = size * size;
+        String outcome = score >= AlphaBetaSearch.WIN_SCORE - cells ? "WIN"
+                : score <= -(AlphaBetaSearch.WIN_SCORE - cells) ? "LOSS"
+                : search.getDepthReached() == cells - board.getMarkCount() ? "DRAW" : "UNKNOWN";
+        return line + "\t" + move / size + "\t" + move % size + "\t" + score + "\t" + search.getDepthReached()
+                + "\t" + outcome;
+    }
+
+    private BackEnd board(int size) {
+        BackEnd[] bySize = boards.get();
+        if (bySize[size] == null) {
+            bySize[size] = size * size <= BitBoard.MAX_CELLS
+                    ? new BitBoard(size, size, winLength) : new BackEnd(size, size, winLength);
+        }
+        return bySize[size];
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public double getPositionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : positions * 1e9 / elapsedNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
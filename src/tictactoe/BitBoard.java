@@ -0,0 +1,143 @@
+package tictactoe;
+
+/**
+ * Bitboard backend for tic tac toe.  Keeps one long bitmask per player, where bit
+ * (row * numColumns + col) is set when that player owns the square.  Wins are found by
+ * AND-ing a player's mask against precomputed win lines and fullness by a popcount.
+ * The char[][] board from BackEnd is still kept in sync so getBoard() works for the GUI.
+ * Boards up to 64 squares (8x8) fit in a long.
+ */
+class BitBoard extends BackEnd {
+
+    public static final int MAX_CELLS = 64;
+
+    private long xMask;
+    private long oMask;
+
+    // win lines that pass through each square, rebuilt when the size or win length changes
+    private long[][] cellLines;
+    private int linesRows;
+    private int linesColumns;
+    private int linesWinLength;
+
+    public BitBoard(int numRows, int numColumns) {
+        super(numRows, numColumns);
+    }
+
+    public BitBoard(int numRows, int numColumns, int winLength) {
+        super(numRows, numColumns, winLength);
+    }
+
+    private BitBoard(BitBoard other) {
+        super(other);
+        xMask = other.xMask;
+        oMask = other.oMask;
+        cellLines = other.cellLines;
+        linesRows = other.linesRows;
+        linesColumns = other.linesColumns;
+        linesWinLength = other.linesWinLength;
+    }
+
+    @Override
+    public BitBoard copy() {
+        return new BitBoard(this);
+    }
+
+    @Override
+    public void copyFrom(BackEnd other) {
+        super.copyFrom(other);
+        BitBoard bits = (BitBoard) other;
+        xMask = bits.xMask;
+        oMask = bits.oMask;
+        cellLines = bits.cellLines;
+    }
+
+    public long getMask(char mark) {
+        return mark == 'x' ? xMask : oMask;
+    }
+
+    @Override
+    public void initializeBoard(int numRows, int numColumns) {
+        if (numRows * numColumns > MAX_CELLS) {
+            throw new IllegalArgumentException("BitBoard holds at most " + MAX_CELLS + " squares");
+        }
+        super.initializeBoard(numRows, numColumns);
+        xMask = 0;
+        oMask = 0;
+        if (cellLines == null || linesRows != numRows || linesColumns != numColumns
+                || linesWinLength != getWinLength()) {
+            buildLines(numRows, numColumns, getWinLength());
+        }
+    }
+
+    // collects every winLength window in all four directions and files it under each of its squares
+    private void buildLines(int numRows, int numColumns, int winLength) {
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        long[][] lines = new long[numRows * numColumns][];
+        int[] counts = new int[numRows * numColumns];
+        long[] windows = new long[4 * numRows * numColumns];
+        int windowCount = 0;
+
+        for (int[] d : directions) {
+            for (int i = 0; i < numRows; i++) {
+                for (int j = 0; j < numColumns; j++) {
+                    int endRow = i + d[0] * (winLength - 1);
+                    int endCol = j + d[1] * (winLength - 1);
+                    if (endRow < 0 || endRow >= numRows || endCol < 0 || endCol >= numColumns) {
+                        continue;
+                    }
+                    long window = 0;
+                    for (int n = 0; n < winLength; n++) {
+                        window |= 1L << ((i + d[0] * n) * numColumns + j + d[1] * n);
+                    }
+                    windows[windowCount++] = window;
+                    for (long bits = window; bits != 0; bits &= bits - 1) {
+                        counts[Long.numberOfTrailingZeros(bits)]++;
+                    }
+                }
+            }
+        }
+
+        for (int cell = 0; cell < lines.length; cell++) {
+            lines[cell] = new long[counts[cell]];
+            counts[cell] = 0;
+        }
+        for (int w = 0; w < windowCount; w++) {
+            for (long bits = windows[w]; bits != 0; bits &= bits - 1) {
+                int cell = Long.numberOfTrailingZeros(bits);
+                lines[cell][counts[cell]++] = windows[w];
+            }
+        }
+
+        cellLines = lines;
+        linesRows = numRows;
+        linesColumns = numColumns;
+        linesWinLength = winLength;
+    }
+
+    // sets the player's bit, then only checks the win lines through that square
+    @Override
+    protected boolean recordMark(int row, int col) {
+        int cell = row * getNumColumns() + col;
+        long mask;
+        if (getCurrentPlayerMark() == 'x') {
+            mask = xMask |= 1L << cell;
+        } else {
+            mask = oMask |= 1L << cell;
+        }
+        for (long line : cellLines[cell]) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void clearMark(int row, int col) {
+        super.clearMark(row, col);
+        long bit = 1L << (row * getNumColumns() + col);
+        xMask &= ~bit;
+        oMask &= ~bit;
+    }
+}
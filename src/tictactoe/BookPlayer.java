@@ -0,0 +1,35 @@
+package tictactoe;
+
+/**
+ * Plays from an opening book while the position is covered and asks a fallback player
+ * (usually a search) otherwise.
+ */
+class BookPlayer implements Player {
+
+    private final OpeningBook book;
+    private final Player fallback;
+    private boolean lastMoveFromBook;
+
+    public BookPlayer(OpeningBook book, Player fallback) {
+        this.book = book;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int selectMove(BackEnd board) {
+        int move = book.lookup(board);
+        lastMoveFromBook = move != -1;
+        if (lastMoveFromBook) {
+            return move;
+        }
+        return fallback.selectMove(board);
+    }
+
+    public boolean wasLastMoveFromBook() {
+        return lastMoveFromBook;
+    }
+
+    public Player getFallback() {
+        return fallback;
+    }
+}
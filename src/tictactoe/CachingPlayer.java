@@ -0,0 +1,71 @@
+package tictactoe;
+
+/**
+ * Answers from a MoveCache when the position (or a rotation or reflection of it) has been
+ * seen before and asks another player otherwise, caching what it chose.  Many caching
+ * players can share one cache, for example one per server thread.  Two threads missing on
+ * the same position both compute it, the later answer is kept.
+ */
+class CachingPlayer implements Player {
+
+    private final MoveCache cache;
+    private final Player player;
+    private boolean lastMoveCached;
+    private int lastScore;
+
+    public CachingPlayer(MoveCache cache, Player player) {
+        this.cache = cache;
+        this.player = player;
+    }
+
+    @Override
+    public int selectMove(BackEnd board) {
+        if (board.checkForWin() || board.isBoardFull()) {
+            return -1;
+        }
+        int symmetry = board.getCanonicalSymmetry();
+        long key = key(board);
+        long value = cache.get(key);
+        lastMoveCached = value != MoveCache.NO_ENTRY;
+        if (lastMoveCached) {
+            lastScore = (int) value;
+            return board.getZobrist().unmap(symmetry, (int) (value >>> 32));
+        }
+
+        long start = System.nanoTime();
+        int move = player.selectMove(board);
+        cache.recordLoad(System.nanoTime() - start);
+        lastScore = player.getLastScore();
+        if (move != -1) {
+            long canonicalMove = board.getZobrist().map(symmetry, move);
+            cache.put(key, canonicalMove << 32 | (lastScore & 0xFFFFFFFFL));
+        }
+        return move;
+    }
+
+    // canonical position, side to move and the game's shape
+    static long key(BackEnd board) {
+        long shape = ((long) board.getNumRows() << 16) | ((long) board.getNumColumns() << 8) | board.getWinLength();
+        return board.getCanonicalHash()
+                ^ (board.getCurrentPlayerMark() == 'o' ? Zobrist.SIDE_TO_MOVE : 0)
+                ^ shape * 0x9E3779B97F4A7C15L;
+    }
+
+    public boolean wasLastMoveCached() {
+        return lastMoveCached;
+    }
+
+    // the cached score on a hit
+    @Override
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    public MoveCache getCache() {
+        return cache;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+}
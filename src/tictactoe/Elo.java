@@ -0,0 +1,117 @@
+package tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Elo arithmetic for match results.  A score is the points per game, 1 for a win and 1/2
+ * for a draw, and a player rated 400 points higher is expected to score 10 to 1.  The
+ * intervals are 95%, from the normal approximation of the mean score.
+ */
+final class Elo {
+
+    private static final double Z_95 = 1.96;
+
+    // a perfect score would be infinitely many points, this caps it near 1200
+    private static final double MAX_SCORE = 0.999;
+
+    private Elo() {
+    }
+
+    // score expected from a player rated elo points higher than its opponent
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    public static double fromScore(double score) {
+        score = Math.max(1 - MAX_SCORE, Math.min(MAX_SCORE, score));
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Rating difference shown by a player's wins, draws and losses against one opponent.
+     * @return the difference and the low and high ends of its interval, all 0 before any game
+     */
+    public static double[] difference(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        if (games == 0) {
+            return new double[3];
+        }
+        double score = (wins + draws / 2.0) / games;
+        double margin = Z_95 * Math.sqrt(variance(wins, draws, losses) / games);
+        return new double[] {fromScore(score), fromScore(score - margin), fromScore(score + margin)};
+    }
+
+    // variance of the points of a single game
+    public static double variance(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        double score = (wins + draws / 2.0) / games;
+        return (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score)
+                + losses * score * score) / games;
+    }
+
+    /**
+     * Ratings of every player from all the games between them, by maximum likelihood of the
+     * logistic model with draws as half a win each.  Every pair that met gets one extra
+     * draw, so a player that won or lost every game still has a finite rating.  The ratings
+     * average 0.
+     * @param points points[i][j] is what player i scored against player j
+     * @param games games[i][j] is the number of games between i and j
+     */
+    public static double[] ratings(double[][] points, long[][] games) {
+        int n = points.length;
+        double[] strength = new double[n];
+        Arrays.fill(strength, 1);
+        // minorization-maximization, every step raises the likelihood
+        for (int iteration = 0; iteration < 10000; iteration++) {
+            double change = 0;
+            for (int i = 0; i < n; i++) {
+                double scored = 0;
+                double expected = 0;
+                for (int j = 0; j < n; j++) {
+                    if (j != i && games[i][j] > 0) {
+                        scored += points[i][j] + 0.5;
+                        expected += (games[i][j] + 1) / (strength[i] + strength[j]);
+                    }
+                }
+                if (expected > 0) {
+                    double updated = scored / expected;
+                    change = Math.max(change, Math.abs(Math.log(updated / strength[i])));
+                    strength[i] = updated;
+                }
+            }
+            if (change < 1e-9) {
+                break;
+            }
+        }
+        double[] ratings = new double[n];
+        double mean = 0;
+        for (int i = 0; i < n; i++) {
+            ratings[i] = 400 * Math.log10(strength[i]);
+            mean += ratings[i] / n;
+        }
+        for (int i = 0; i < n; i++) {
+            ratings[i] -= mean;
+        }
+        return ratings;
+    }
+
+    /**
+     * Half widths of the intervals of ratings, from the curvature of the likelihood at its
+     * maximum.  Each is taken with the other ratings held fixed, so it is a little narrow.
+     */
+    public static double[] ratingMargins(double[] ratings, long[][] games) {
+        double[] margins = new double[ratings.length];
+        for (int i = 0; i < ratings.length; i++) {
+            double information = 0;
+            for (int j = 0; j < ratings.length; j++) {
+                if (j != i && games[i][j] > 0) {
+                    double p = expectedScore(ratings[i] - ratings[j]);
+                    information += (games[i][j] + 1) * p * (1 - p);
+                }
+            }
+            margins[i] = information == 0 ? Double.POSITIVE_INFINITY
+                    : Z_95 * 400 / Math.log(10) / Math.sqrt(information);
+        }
+        return margins;
+    }
+}
@@ -1,18 +1,33 @@
+package tictactoe;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.Hashtable;
+import java.util.logging.Logger;
 
 /**
  * GUI for tic tac toe.  Includes button grid for game, score label, and menu bar.
  * @author Colin Flueck
  */
 public class FrontEnd {
+    private static final Logger LOG = Logger.getLogger(FrontEnd.class.getName());
+
+    // client property holding a grid button's square (row * gridSize + col)
+    private static final String CELL_PROPERTY = "cell";
+
     private JFrame frame;
     private JButton[][] buttons;
+    // what each button currently shows, so updates only touch squares that changed
+    private char[][] rendered;
     private JLabel scoreLabel;
+    private JPanel grid;
     private int gridSize = 3;
     private Match match;
+    private ActionListener actionListener;
+    private MouseAdapter mouseAdapter;
+    // side to move as the match last published it, the board itself belongs to the turn thread
+    private char toMove = 'x';
 
 
 
@@ -20,70 +35,48 @@ public class FrontEnd {
      * GUI Constructor.  Creates grid for tic tac toe buttons, score section, and menubar.
      * Also instantiates and adds various action and mouse listeners.
      */
-    public FrontEnd(Match match, BackEnd gameBoard) {
+    public FrontEnd(Match match) {
         this.match = match;
         frame = new JFrame("Tic Tac Toe");
 
         // activated when grid buttons clicked
-        ActionListener actionListener = new ActionListener() {
+        actionListener = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                int[] index = getButtonIndex(e);
-                match.setPlayerSelection(index[0], index[1]);
+                int cell = getButtonCell(e);
+                match.setPlayerSelection(cell / gridSize, cell % gridSize);
             }
         };
 
         // activated when mouse goes over and leaves grid buttons
-        MouseAdapter mouseAdapter = new MouseAdapter() {
+        mouseAdapter = new MouseAdapter() {
             @Override
             public void mouseEntered(MouseEvent e) {
                 super.mouseEntered(e);
-                int[] index = getButtonIndex(e);
-                buttons[index[0]][index[1]].setForeground(Color.blue);
+                JButton button = (JButton) e.getSource();
+                button.setForeground(Color.blue);
 
-                if (buttons[index[0]][index[1]].getText().equals("")) {
-                    String mark = Character.toString(gameBoard.getCurrentPlayerMark());
-                    buttons[index[0]][index[1]].setText(mark);
-                    buttons[index[0]][index[1]].setForeground(Color.gray);
+                if (button.getText().isEmpty()) {
+                    button.setText(markText(toMove));
+                    button.setForeground(Color.gray);
                 }
             }
 
             @Override
             public void mouseExited(MouseEvent e) {
                 super.mouseExited(e);
-                int[] index = getButtonIndex(e);
-                buttons[index[0]][index[1]].setForeground(Color.black);
-
-                char[][] board = gameBoard.getBoard();
+                JButton button = (JButton) e.getSource();
+                int cell = getButtonCell(e);
+                button.setForeground(Color.black);
 
-                String mark = Character.toString(board[index[0]][index[1]]);
-                if (mark.equals("-")) {
-                    mark = "";
-                }
-                buttons[index[0]][index[1]].setText(mark);
+                button.setText(markText(rendered[cell / gridSize][cell % gridSize]));
             }
         };
 
 
         JPanel mainPanel = new JPanel();
-        JPanel grid = new JPanel();
-
-        // these numbers can change for a 4x4 or 5x5 grid.  Will also need to update backend though
-        buttons = new JButton[gridSize][gridSize];
-
-        for (int i = 0; i < gridSize; i++) {
-            for (int j = 0; j < gridSize; j++) {
-                buttons[i][j] = new JButton("");
-                buttons[i][j].setFont(new Font("Arial", Font.PLAIN, 100));
-
-                // adds listeners for hovering and clicks
-                buttons[i][j].addActionListener(actionListener);
-                buttons[i][j].addMouseListener(mouseAdapter);
-                grid.add(buttons[i][j]);
-            }
-        }
-
-        grid.setLayout(new GridLayout(gridSize, gridSize));
+        grid = new JPanel();
+        setGridSize(gridSize);
 
         JLabel title = new JLabel("Tic Tac Toe!", SwingConstants.CENTER);
         title.setFont(new Font("Arial", Font.PLAIN, 60));
@@ -91,12 +84,16 @@ public class FrontEnd {
         JMenuItem settings = new JMenuItem("Settings");
         JMenuItem newMatch = new JMenuItem("New Match");
         JMenuItem stopGame = new JMenuItem("Stop Playing");
+        JMenuItem undo = new JMenuItem("Undo");
+        JMenuItem redo = new JMenuItem("Redo");
 
         JMenuBar menuBar = new JMenuBar();
         menuBar.setLayout(new FlowLayout(FlowLayout.LEFT));
         menuBar.add(settings);
 //        menuBar.add(newMatch);
         menuBar.add(stopGame);
+        menuBar.add(undo);
+        menuBar.add(redo);
 
 // ---------------------- Menu Bar Action Listeners ---------------------- //
 
@@ -113,6 +110,21 @@ public class FrontEnd {
             }
         });
 
+        // the match takes back or replays your move together with the computer's reply
+        undo.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                match.undo();
+            }
+        });
+
+        redo.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                match.redo();
+            }
+        });
+
         newMatch.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -125,7 +137,8 @@ public class FrontEnd {
         settings.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                JSlider num = new JSlider(3,8,3);
+                JSlider num = new JSlider(3,8,gridSize);
+                JSlider win = new JSlider(3,8,match.getWinLength());
 
                 Hashtable <Integer, JLabel> numbers = new Hashtable<Integer, JLabel>();
                 numbers.put(3, new JLabel("3x3"));
@@ -141,23 +154,29 @@ public class FrontEnd {
                 num.setPaintTicks(true);
                 num.setPaintLabels(true);
 
+                win.setMajorTickSpacing(1);
+                win.setPaintTicks(true);
+                win.setPaintLabels(true);
+
                 JPanel panel = new JPanel();
                 JLabel gridLabel = new JLabel("Select the grid size");
                 panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-//                panel.add(gridLabel);
-//                panel.add(num);
+                panel.add(gridLabel);
+                panel.add(num);
+                panel.add(Box.createRigidArea(new Dimension(0,10)));
+                panel.add(new JLabel("Select how many in a row wins (at most the grid size)"));
+                panel.add(win);
 
-                panel.add(new JLabel("Grid size changes, single player vs two player, and more settings coming soon."));
                 panel.add(Box.createRigidArea(new Dimension(0,10)));
+                panel.add(new JLabel("Changes take effect at the start of the next game."));
                 panel.add(new JLabel("Click Yes to save your changes"));
 
                 // the user must save or cancel their changes to settings
                 int n = JOptionPane.showConfirmDialog(frame, panel, "Settings", JOptionPane.YES_OPTION, JOptionPane.CANCEL_OPTION);
                 if  (n == JOptionPane.YES_OPTION) {
-                    gridSize = num.getValue();
-                    System.out.println(gridSize);
+                    match.setGridSize(num.getValue(), Math.min(win.getValue(), num.getValue()));
                 } else {
-                    System.out.println("\nCancelled\n");
+                    LOG.fine("Settings cancelled");
                 }
             }
         });
@@ -193,35 +212,81 @@ public class FrontEnd {
 
     }
 
-    // used in action listeners to determine which button is pressed
-    private int[] getButtonIndex(AWTEvent e) {
-        JButton button = (JButton) e.getSource();
+    // rebuilds the button grid for a size x size board, font shrinks as the grid grows
+    public void setGridSize(int size) {
+        gridSize = size;
+        grid.removeAll();
+        buttons = new JButton[gridSize][gridSize];
+        rendered = new char[gridSize][gridSize];
+        Font font = new Font("Arial", Font.PLAIN, 300 / gridSize);
 
         for (int i = 0; i < gridSize; i++) {
             for (int j = 0; j < gridSize; j++) {
-                if (button.equals(buttons[i][j])) {
-                    return new int[] {i,j};
-                }
+                buttons[i][j] = new JButton("");
+                rendered[i][j] = '-';
+                buttons[i][j].setFont(font);
+                buttons[i][j].putClientProperty(CELL_PROPERTY, i * gridSize + j);
+
+                // adds listeners for hovering and clicks
+                buttons[i][j].addActionListener(actionListener);
+                buttons[i][j].addMouseListener(mouseAdapter);
+                grid.add(buttons[i][j]);
             }
         }
-        return null;
+
+        grid.setLayout(new GridLayout(gridSize, gridSize));
+        grid.revalidate();
+        grid.repaint();
+    }
+
+    // used in action listeners to determine which button is pressed, no search or allocation per event
+    private int getButtonCell(AWTEvent e) {
+        return (Integer) ((JButton) e.getSource()).getClientProperty(CELL_PROPERTY);
+    }
+
+    // button text for a board square, always one of the same three strings
+    private static String markText(char mark) {
+        if (mark == 'x') {
+            return "x";
+        } else if (mark == 'o') {
+            return "o";
+        }
+        return "";
     }
 
-    // GUI update, sets grid buttons to correct character
+    // GUI update, sets grid buttons to correct character, only repainting the ones that changed
     public void resetBoard(char[][] board) {
         for (int i = 0; i < gridSize; i++) {
             for (int j = 0; j < gridSize; j++) {
-                if (board[i][j] == '-') {
-                    buttons[i][j].setText("");
-                } else {
-                    buttons[i][j].setText(Character.toString(board[i][j]));
-                }
+                showMark(i, j, board[i][j]);
             }
         }
     }
 
+    // empties every button that still shows a mark, used when a new game starts
+    public void clearBoard() {
+        for (int i = 0; i < gridSize; i++) {
+            for (int j = 0; j < gridSize; j++) {
+                showMark(i, j, '-');
+            }
+        }
+    }
+
+    // updates a single square, does nothing if the button already shows that mark
+    public void showMark(int row, int col, char mark) {
+        if (rendered[row][col] != mark) {
+            rendered[row][col] = mark;
+            buttons[row][col].setText(markText(mark));
+        }
+    }
+
+
+    // the mark shown on empty squares under the mouse, set by the match after every change
+    public void showToMove(char mark) {
+        toMove = mark;
+    }
 
-    public void updateScore(int[] scores) {
+    public void updateScore(long[] scores) {
         scoreLabel.setText("Player X: " + scores[0] + "          Player O: " + scores[1] + "          Tie: " + scores[2]);
     }
 
@@ -0,0 +1,99 @@
+package tictactoe;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming reader for logs written by GameLogWriter.  Reads the file through one fixed
+ * buffer and decodes into a caller supplied GameRecord, so a log of any length can be
+ * scanned in constant memory.
+ */
+class GameLogReader implements Closeable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private boolean endOfFile;
+
+    public GameLogReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.limit(0);
+        fill(GameLogWriter.HEADER_BYTES);
+        if (buffer.remaining() < GameLogWriter.HEADER_BYTES || buffer.getInt() != GameLogWriter.MAGIC
+                || buffer.get() != GameLogWriter.VERSION) {
+            channel.close();
+            throw new IOException("not a game log: " + file);
+        }
+    }
+
+    /**
+     * Decodes the next record into record.
+     * @return false at the end of the log
+     * @throws IOException if the record is cut off or has fields no writer produces
+     */
+    public boolean next(GameRecord record) throws IOException {
+        fill(GameLogWriter.MAX_RECORD_BYTES);
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+        if (buffer.remaining() < 4) {
+            throw new EOFException("truncated record");
+        }
+        record.size = buffer.get();
+        record.winLength = buffer.get();
+        record.result = buffer.get();
+        record.moveCount = buffer.get();
+        int cells = record.size * record.size;
+        // the bytes are signed, so damage shows up as a negative or oversized field
+        if (!GameLogWriter.isValid(record.size, record.winLength, record.result, record.moveCount)) {
+            throw new IOException("corrupt record");
+        }
+
+        int bits = GameLogWriter.bitsPerMove(record.size);
+        int bytes = (record.moveCount * bits + 7) / 8;
+        if (buffer.remaining() < bytes) {
+            throw new EOFException("truncated record");
+        }
+        int mask = (1 << bits) - 1;
+        long pending = 0;
+        int pendingBits = 0;
+        for (int i = 0; i < record.moveCount; i++) {
+            while (pendingBits < bits) {
+                pending |= (long) (buffer.get() & 0xFF) << pendingBits;
+                pendingBits += 8;
+            }
+            record.moves[i] = (int) (pending & mask);
+            if (record.moves[i] >= cells) {
+                throw new IOException("corrupt record");
+            }
+            pending >>>= bits;
+            pendingBits -= bits;
+        }
+        return true;
+    }
+
+    // makes sure at least wanted bytes are buffered unless the file ends first
+    private void fill(int wanted) throws IOException {
+        if (buffer.remaining() >= wanted || endOfFile) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < wanted && !endOfFile) {
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+            }
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,120 @@
+package tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only writer for the binary game log.  Records are encoded into a buffer and
+ * written to the file in batches, so most appends never touch the channel.  Not thread
+ * safe, give each thread its own log file.
+ *
+ * The file starts with the magic "TTTL" and a version byte.  Each record is:
+ *   size, win length, result, move count   one byte each
+ *   moves                                  bitsPerMove(size) bits each, packed low bit first
+ */
+class GameLogWriter implements Closeable {
+
+    static final int MAGIC = 0x5454544C; // "TTTL"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 5;
+
+    // 4 header bytes plus 64 moves of 6 bits
+    static final int MAX_RECORD_BYTES = 4 + 48;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private long records;
+
+    public GameLogWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            buffer.putInt(MAGIC);
+            buffer.put((byte) VERSION);
+        }
+    }
+
+    // bits needed for a square index on a size x size board, 4 for 3x3 up to 6 for 8x8
+    static int bitsPerMove(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size * size - 1);
+    }
+
+    public void append(GameRecord record) throws IOException {
+        append(record.size, record.winLength, record.result, record.moves, record.moveCount);
+    }
+
+    // what every record's fields must be, GameLogReader refuses anything else as corrupt
+    static boolean isValid(int size, int winLength, int result, int moveCount) {
+        return size >= 3 && size <= GameRecord.MAX_MOVES && size * size <= GameRecord.MAX_MOVES
+                && winLength >= 1 && winLength <= size && result >= Scoreboard.X_WINS && result <= Scoreboard.TIE
+                && moveCount >= 0 && moveCount <= size * size;
+    }
+
+    /**
+     * Buffers one game.  Checked before anything is buffered, since a record the reader
+     * refuses would also hide every record after it.
+     * @throws IllegalArgumentException if the reader would refuse the record
+     */
+    public void append(int size, int winLength, int result, int[] moves, int moveCount) throws IOException {
+        if (!isValid(size, winLength, result, moveCount) || moveCount > moves.length) {
+            throw new IllegalArgumentException("not a loggable game: size " + size + ", win length " + winLength
+                    + ", result " + result + ", " + moveCount + " moves");
+        }
+        for (int i = 0; i < moveCount; i++) {
+            if (moves[i] < 0 || moves[i] >= size * size) {
+                throw new IllegalArgumentException("move " + i + " is off the board: " + moves[i]);
+            }
+        }
+        if (buffer.remaining() < MAX_RECORD_BYTES) {
+            flush();
+        }
+        buffer.put((byte) size);
+        buffer.put((byte) winLength);
+        buffer.put((byte) result);
+        buffer.put((byte) moveCount);
+
+        int bits = bitsPerMove(size);
+        long pending = 0;
+        int pendingBits = 0;
+        for (int i = 0; i < moveCount; i++) {
+            pending |= (long) moves[i] << pendingBits;
+            pendingBits += bits;
+            while (pendingBits >= 8) {
+                buffer.put((byte) pending);
+                pending >>>= 8;
+                pendingBits -= 8;
+            }
+        }
+        if (pendingBits > 0) {
+            buffer.put((byte) pending);
+        }
+        records++;
+    }
+
+    // writes the buffered records to the file
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public long getRecordsWritten() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package tictactoe;
+
+/**
+ * One finished game: board size, win length, result and the squares played in order
+ * (X first).  Reused by GameLogReader so scanning a log allocates nothing per record.
+ */
+class GameRecord {
+
+    // largest board a record can hold, 8x8
+    public static final int MAX_MOVES = 64;
+
+    int size;
+    int winLength;
+    int result;
+    int moveCount;
+    final int[] moves = new int[MAX_MOVES];
+
+    public void set(int size, int winLength, int result, int[] moves, int moveCount) {
+        this.size = size;
+        this.winLength = winLength;
+        this.result = result;
+        this.moveCount = moveCount;
+        System.arraycopy(moves, 0, this.moves, 0, moveCount);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    // Scoreboard.X_WINS, O_WINS or TIE
+    public int getResult() {
+        return result;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getMove(int i) {
+        return moves[i];
+    }
+
+    /**
+     * Plays the moves back through placeMark on board, which must be size x size with the
+     * same win length.
+     * @return the result the replay reached, which matches getResult() for a valid record
+     */
+    public int replay(BackEnd board) {
+        board.initializeBoard(size, size);
+        board.setPlayer('x');
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            if (!board.placeMark(move / size, move % size)) {
+                throw new IllegalStateException("move " + i + " of the record is illegal");
+            }
+            if (board.checkForWin()) {
+                return board.getCurrentPlayerMark() == 'x' ? Scoreboard.X_WINS : Scoreboard.O_WINS;
+            }
+            board.changePlayer();
+        }
+        return Scoreboard.TIE;
+    }
+}
@@ -0,0 +1,371 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless server hosting many matches at once, one per connection.  A single selector
+ * thread does all socket I/O with non-blocking NIO, and a worker pool plays the moves, so
+ * thousands of idle connections cost no threads.  Sessions live in a ConcurrentHashMap
+ * registry and each has its own board.  Search engines (and their tables) belong to the
+ * worker threads rather than the sessions, so memory doesn't grow with the session count.
+ * All of them answer through one shared MoveCache, since most games go through the same
+ * few opening positions.
+ *
+ * The protocol is one text line per request and per reply.  The client plays X:
+ *   NEW &lt;size&gt; &lt;winLength&gt; [name]  -&gt; OK            starts a game, name is used on the scoreboard
+ *   MOVE &lt;row&gt; &lt;col&gt;         -&gt; O &lt;row&gt; &lt;col&gt; [O_WINS|TIE], X_WINS, TIE or ERR &lt;reason&gt;
+ *   STATS                    -&gt; STATS &lt;xWins&gt; &lt;oWins&gt; &lt;ties&gt; [name:wins-losses-ties ...]
+ *   QUIT                     -&gt; closes the connection
+ * Results go to a shared Scoreboard whose snapshot, with the top 10 players, is published every second.
+ * Sessions that give no name all play as "anonymous", and neither that nor "computer" can be chosen.
+ */
+class GameServer {
+
+    private static final int MAX_LINE = 256;
+    private static final String COMPUTER = "computer";
+    // every session that doesn't give a name shares this row, so one-off clients don't each add one
+    private static final String ANONYMOUS = "anonymous";
+
+    // default number of positions in the move cache
+    private static final int DEFAULT_CACHE_ENTRIES = 100_000;
+
+    private final int port;
+    private final ExecutorService workers;
+    private final MoveCache moveCache;
+    private final ThreadLocal<CachingPlayer> engines;
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final Queue<Session> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextSessionId = new AtomicLong();
+    private final AtomicLong movesPlayed = new AtomicLong();
+    private final Scoreboard scoreboard = new Scoreboard(10);
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    public GameServer(int port, int workerThreads, long aiMillis) {
+        this(port, workerThreads, aiMillis, new MoveCache(DEFAULT_CACHE_ENTRIES));
+    }
+
+    public GameServer(int port, int workerThreads, long aiMillis, MoveCache moveCache) {
+        this.port = port;
+        this.moveCache = moveCache;
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "server-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.engines = ThreadLocal.withInitial(
+                () -> new CachingPlayer(moveCache, new AlphaBetaSearch(aiMillis, new TranspositionTable(18))));
+    }
+
+    // binds the port, after this returns clients can connect
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        scoreboard.startPublishing(1000);
+        running = true;
+    }
+
+    // runs the selector loop on the calling thread until stop() is called
+    public void serve() throws IOException {
+        while (running) {
+            selector.select();
+            for (Session session; (session = pendingWrites.poll()) != null; ) {
+                if (session.key.isValid()) {
+                    session.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Session session = (Session) key.attachment();
+                        if (key.isReadable()) {
+                            read(session);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(session);
+                        }
+                    }
+                } catch (IOException e) {
+                    Object attachment = key.attachment();
+                    if (attachment instanceof Session) {
+                        close((Session) attachment);
+                    }
+                }
+            }
+        }
+        for (Session session : sessions.values()) {
+            close(session);
+        }
+        serverChannel.close();
+        selector.close();
+        workers.shutdownNow();
+        scoreboard.stopPublishing();
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    public Scoreboard getScoreboard() {
+        return scoreboard;
+    }
+
+    public MoveCache getMoveCache() {
+        return moveCache;
+    }
+
+    public long getMovesPlayed() {
+        return movesPlayed.get();
+    }
+
+    // actual port, useful when started on port 0
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Session session = new Session(nextSessionId.incrementAndGet(), channel);
+            session.key = channel.register(selector, SelectionKey.OP_READ, session);
+            sessions.put(session.id, session);
+        }
+    }
+
+    // splits input into lines and hands them to the session's worker task
+    private void read(Session session) throws IOException {
+        ByteBuffer in = session.in;
+        if (session.channel.read(in) < 0) {
+            close(session);
+            return;
+        }
+        in.flip();
+        int start = in.position();
+        for (int i = start; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                byte[] line = new byte[i - start];
+                in.get(line);
+                in.get(); // newline
+                session.inbox.add(new String(line, StandardCharsets.US_ASCII).trim());
+                start = i + 1;
+            }
+        }
+        in.compact();
+        if (!in.hasRemaining()) {
+            // a line longer than any valid request
+            close(session);
+            return;
+        }
+        schedule(session);
+    }
+
+    private void write(Session session) throws IOException {
+        for (ByteBuffer out; (out = session.outbox.peek()) != null; ) {
+            session.channel.write(out);
+            if (out.hasRemaining()) {
+                return;
+            }
+            session.outbox.poll();
+        }
+        session.key.interestOps(SelectionKey.OP_READ);
+        // a reply may have been queued after the loop above saw an empty outbox
+        if (!session.outbox.isEmpty()) {
+            pendingWrites.add(session);
+        }
+    }
+
+    // safe from any thread, channel close and key cancel are thread safe
+    private void close(Session session) {
+        sessions.remove(session.id);
+        session.closed = true;
+        session.key.cancel();
+        try {
+            session.channel.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+
+    // at most one worker task per session at a time, so its requests run in order
+    private void schedule(Session session) {
+        if (!session.inbox.isEmpty() && session.scheduled.compareAndSet(false, true)) {
+            workers.execute(() -> drain(session));
+        }
+    }
+
+    private void drain(Session session) {
+        for (String line; (line = session.inbox.poll()) != null && !session.closed; ) {
+            String reply = handle(session, line);
+            if (reply == null) {
+                close(session);
+                return;
+            }
+            session.outbox.add(ByteBuffer.wrap((reply + "\n").getBytes(StandardCharsets.US_ASCII)));
+            pendingWrites.add(session);
+            selector.wakeup();
+        }
+        session.scheduled.set(false);
+        schedule(session);
+    }
+
+    // returns the reply line, or null to close the connection
+    private String handle(Session session, String line) {
+        String[] parts = line.split(" ");
+        try {
+            switch (parts[0]) {
+                case "NEW":
+                    if (parts.length > 3) {
+                        // the engine's row and the shared row aren't a client's to take
+                        if (parts[3].equalsIgnoreCase(COMPUTER) || parts[3].equalsIgnoreCase(ANONYMOUS)) {
+                            return "ERR reserved name";
+                        }
+                        session.name = parts[3];
+                    }
+                    return newGame(session, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                case "STATS":
+                    return stats();
+                case "MOVE":
+                    return move(session, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                case "QUIT":
+                    return null;
+                default:
+                    return "ERR unknown command";
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return "ERR bad arguments";
+        }
+    }
+
+    private String newGame(Session session, int size, int winLength) {
+        if (size < 3 || size * size > BitBoard.MAX_CELLS || winLength < 3 || winLength > size) {
+            return "ERR unsupported board";
+        }
+        if (session.board == null || session.board.getNumRows() != size || session.board.getWinLength() != winLength) {
+            session.board = new BitBoard(size, size, winLength);
+        }
+        session.board.initializeBoard(size, size);
+        session.board.setPlayer('x');
+        return "OK";
+    }
+
+    private String move(Session session, int row, int col) {
+        String reply = play(session, row, col);
+        if (session.board != null) {
+            Metrics.global().recordWinChecks(session.board.drainWinChecks());
+        }
+        return reply;
+    }
+
+    private String play(Session session, int row, int col) {
+        BackEnd board = session.board;
+        if (board == null || board.checkForWin() || board.isBoardFull()) {
+            return "ERR no game in progress";
+        }
+        if (!board.placeMark(row, col)) {
+            return "ERR illegal move";
+        }
+        movesPlayed.incrementAndGet();
+        if (board.checkForWin()) {
+            recordGame(session.name, Scoreboard.X_WINS);
+            return "X_WINS";
+        }
+        if (board.isBoardFull()) {
+            recordGame(session.name, Scoreboard.TIE);
+            return "TIE";
+        }
+
+        board.changePlayer();
+        int reply = engines.get().selectMove(board);
+        int replyRow = reply / board.getNumColumns();
+        int replyCol = reply % board.getNumColumns();
+        board.placeMark(replyRow, replyCol);
+        movesPlayed.incrementAndGet();
+        String played = "O " + replyRow + " " + replyCol;
+        if (board.checkForWin()) {
+            recordGame(session.name, Scoreboard.O_WINS);
+            return played + " O_WINS";
+        }
+        board.changePlayer();
+        if (board.isBoardFull()) {
+            recordGame(session.name, Scoreboard.TIE);
+            return played + " TIE";
+        }
+        return played;
+    }
+
+    private void recordGame(String name, int result) {
+        scoreboard.recordGame(name, COMPUTER, result);
+        Metrics.global().recordGame();
+    }
+
+    // reads the last published snapshot, so this never waits on the games being recorded
+    private String stats() {
+        Scoreboard.Snapshot snapshot = scoreboard.getSnapshot();
+        StringBuilder reply = new StringBuilder("STATS ")
+                .append(snapshot.xWins).append(' ').append(snapshot.oWins).append(' ').append(snapshot.ties);
+        for (Scoreboard.Entry entry : snapshot.leaders) {
+            reply.append(' ').append(entry.name).append(':')
+                    .append(entry.wins).append('-').append(entry.losses).append('-').append(entry.ties);
+        }
+        return reply.toString();
+    }
+
+    private static final class Session {
+        final long id;
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        final Queue<String> inbox = new ConcurrentLinkedQueue<>();
+        final Queue<ByteBuffer> outbox = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        SelectionKey key;
+        volatile boolean closed;
+
+        // only touched by the session's worker task
+        BackEnd board;
+        String name = ANONYMOUS;
+
+        Session(long id, SocketChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+
+/**
+ * The built in strategy (see BackEnd.heuristicPlaceMark) as a Player, for either side.
+ * It plays on a scratch copy of the board, so the board it is given never changes.  Each
+ * instance owns its scratch board and random generator, so give every thread its own.
+ */
+class HeuristicPlayer implements Player {
+
+    private final SplittableRandom random;
+    private BackEnd scratch;
+
+    public HeuristicPlayer(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public int selectMove(BackEnd board) {
+        if (board.checkForWin() || board.isBoardFull()) {
+            return -1;
+        }
+        if (scratch == null || !scratch.hasSameShape(board)) {
+            scratch = board.copy();
+        } else {
+            scratch.copyFrom(board);
+        }
+        scratch.heuristicPlaceMark(random);
+        return scratch.getLastMove();
+    }
+}
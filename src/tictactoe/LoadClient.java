@@ -0,0 +1,189 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Load generator for GameServer.  Opens many connections from one selector thread and
+ * plays random X moves on each until every connection has finished its games, then
+ * reports games per second and request latency.
+ */
+class LoadClient {
+
+    private final InetSocketAddress address;
+    private final int connections;
+    private final int gamesPerConnection;
+    private final int size;
+    private final int winLength;
+
+    private long games;
+    private long requests;
+    private long errors;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private long elapsedNanos;
+
+    public LoadClient(InetSocketAddress address, int connections, int gamesPerConnection, int size, int winLength) {
+        this.address = address;
+        this.connections = connections;
+        this.gamesPerConnection = gamesPerConnection;
+        this.size = size;
+        this.winLength = winLength;
+    }
+
+    public void run() throws IOException {
+        long start = System.nanoTime();
+        SplittableRandom seeds = new SplittableRandom(start);
+        int open = 0;
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < connections; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, new Connection(channel, seeds.split(), "load-" + i));
+                open++;
+            }
+
+            while (open > 0) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            connection.channel.finishConnect();
+                            connection.channel.socket().setTcpNoDelay(true);
+                            key.interestOps(SelectionKey.OP_READ);
+                            connection.send("NEW " + size + " " + winLength + " " + connection.name);
+                        } else if (key.isReadable() && !connection.read()) {
+                            key.cancel();
+                            connection.channel.close();
+                            open--;
+                        }
+                    } catch (IOException e) {
+                        errors++;
+                        key.cancel();
+                        connection.channel.close();
+                        open--;
+                    }
+                }
+            }
+        }
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    public String report() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%d connections, %d games, %d requests, %d errors in %.2f s%n"
+                        + "%.0f games/sec, %.0f requests/sec, latency mean %.3f ms, max %.3f ms",
+                connections, games, requests, errors, seconds, games / seconds, requests / seconds,
+                requests == 0 ? 0 : totalLatencyNanos / 1e6 / requests, maxLatencyNanos / 1e6);
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final String name;
+        final RandomPlayer player;
+        final BackEnd board = new BackEnd(size, size, winLength);
+        final ByteBuffer in = ByteBuffer.allocate(256);
+        final StringBuilder line = new StringBuilder();
+        int gamesPlayed;
+        long sentAt;
+
+        Connection(SocketChannel channel, SplittableRandom random, String name) {
+            this.channel = channel;
+            this.name = name;
+            this.player = new RandomPlayer(random);
+        }
+
+        void send(String request) throws IOException {
+            ByteBuffer out = ByteBuffer.wrap((request + "\n").getBytes(StandardCharsets.US_ASCII));
+            // replies are small and one request is outstanding at a time, so this rarely loops
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            sentAt = System.nanoTime();
+        }
+
+        // handles every complete reply, returns false once the connection is done
+        boolean read() throws IOException {
+            if (channel.read(in) < 0) {
+                return false;
+            }
+            in.flip();
+            while (in.hasRemaining()) {
+                char c = (char) in.get();
+                if (c != '\n') {
+                    line.append(c);
+                    continue;
+                }
+                long latency = System.nanoTime() - sentAt;
+                requests++;
+                totalLatencyNanos += latency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+                String reply = line.toString();
+                line.setLength(0);
+                if (!handle(reply)) {
+                    return false;
+                }
+            }
+            in.clear();
+            return true;
+        }
+
+        private boolean handle(String reply) throws IOException {
+            String[] parts = reply.split(" ");
+            boolean gameOver;
+            switch (parts[0]) {
+                case "OK":
+                    board.initializeBoard(size, size);
+                    gameOver = false;
+                    break;
+                case "O":
+                    board.setPlayer('o');
+                    board.placeMark(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                    gameOver = parts.length > 3;
+                    break;
+                case "X_WINS":
+                case "TIE":
+                    gameOver = true;
+                    break;
+                default:
+                    errors++;
+                    return false;
+            }
+
+            if (!gameOver) {
+                board.setPlayer('x');
+                int move = player.selectMove(board);
+                board.placeMark(move / size, move % size);
+                send("MOVE " + move / size + " " + move % size);
+                return true;
+            }
+            games++;
+            if (++gamesPlayed < gamesPerConnection) {
+                send("NEW " + size + " " + winLength + " " + name);
+                return true;
+            }
+            send("QUIT");
+            return false;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package tictactoe;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens the game window with no arguments (or "gui").  Also runs the command line tools,
+ * which never load AWT or Swing, so they start fast and work on machines without a display:
+ *   book &lt;size&gt; &lt;winLength&gt; &lt;maxPly&gt; [millisPerPosition] [file]   writes an opening book
+ *   selfplay &lt;games&gt; [size] [winLength] [xPlayer] [oPlayer] [threads] [randomPlies] [logFile]
+ *       plays computer vs computer games without the GUI, players are random,
+ *       heuristic, search:&lt;millis&gt;[:threads] or mcts:&lt;millis&gt;[:playouts]
+ *   tournament &lt;size&gt; &lt;winLength&gt; &lt;maxGames&gt; &lt;randomPlies&gt; &lt;roundrobin|swiss:rounds&gt; &lt;player&gt;...
+ *       plays the players against each other, stopping a pairing early once it is settled,
+ *       and ranks them by Elo, see Tournament
+ *   replay &lt;logFile&gt;...        replays game logs and checks every recorded result
+ *   analyze &lt;winLength&gt; [millisPerPosition] [threads] [inFile|-] [outFile|-]
+ *       grades one position per line from a file or stdin, see BatchAnalyzer
+ *   smp &lt;size&gt; &lt;winLength&gt; &lt;depth&gt; [maxThreads]   times the parallel search to a fixed depth
+ *       from the empty board on 1, 2, 4 ... threads and prints the speedup
+ *   solve &lt;size&gt; &lt;winLength&gt; [minutes] [checkpointFile] [spillFile] [spillMegabytes]
+ *       proves whether X wins, O wins or it's a draw with perfect play, see ProofNumberSearch.
+ *       The node table gets a quarter of the heap and overflows into spillFile, and a run
+ *       with a checkpoint file resumes from it.  The spill file is only kept when resuming,
+ *       and only for the same board and spillMegabytes
+ *   positions &lt;size&gt; &lt;winLength&gt; [megabytes]   counts the distinct positions reachable in play,
+ *       stored with PositionCodec in a PositionSet of at most megabytes
+ *   server &lt;port&gt; [workerThreads] [aiMillis] [cacheFile] [cacheEntries]
+ *       hosts matches over a line protocol, see GameServer.  The move cache is loaded from
+ *       cacheFile at startup and saved back to it on shutdown
+ *   loadtest &lt;host&gt; &lt;port&gt; &lt;connections&gt; &lt;gamesPerConnection&gt; [size] [winLength]
+ * Game messages go through java.util.logging, INFO and up by default.  Run with a logging
+ * config that enables FINE for tictactoe to see the board and how the computer chose each
+ * move.  Metrics are published over JMX as tictactoe:type=Metrics.
+ * @author Colin Flueck
+ */
+class Main {
+
+    public static void main(String[] args) throws Exception {
+        // plain one line messages unless the user configured a format
+        if (System.getProperty("java.util.logging.SimpleFormatter.format") == null) {
+            System.setProperty("java.util.logging.SimpleFormatter.format", "%5$s%6$s%n");
+        }
+        if (args.length == 0 || args[0].equals("gui")) {
+            openWindow();
+            return;
+        }
+        // anything below that reaches for AWT by mistake fails fast instead of looking for a display
+        System.setProperty("java.awt.headless", "true");
+
+        if (args[0].equals("book")) {
+            writeBook(args);
+            return;
+        }
+        if (args[0].equals("selfplay")) {
+            selfPlay(args);
+            return;
+        }
+        if (args[0].equals("tournament")) {
+            tournament(args);
+            return;
+        }
+        if (args[0].equals("replay")) {
+            replay(args);
+            return;
+        }
+        if (args[0].equals("analyze")) {
+            analyze(args);
+            return;
+        }
+        if (args[0].equals("smp")) {
+            measureSpeedup(args);
+            return;
+        }
+        if (args[0].equals("solve")) {
+            solve(args);
+            return;
+        }
+        if (args[0].equals("positions")) {
+            countPositions(args);
+            return;
+        }
+        if (args[0].equals("server")) {
+            serve(args);
+            return;
+        }
+        if (args[0].equals("loadtest")) {
+            loadTest(args);
+            return;
+        }
+        System.err.println("Unknown command " + args[0] + ", expected gui, book, selfplay, tournament, replay,"
+                + " analyze, smp, solve, positions, server or loadtest");
+        System.exit(2);
+    }
+
+    // the only path that loads AWT and Swing
+    private static void openWindow() {
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("No display available, the command line tools still work, see Main");
+            System.exit(1);
+        }
+        new Match();
+    }
+
+    private static void writeBook(String[] args) throws Exception {
+        int size = Integer.parseInt(args[1]);
+        int winLength = Integer.parseInt(args[2]);
+        int maxPly = Integer.parseInt(args[3]);
+        long millis = args.length > 4 ? Long.parseLong(args[4]) : 200;
+        Path file = args.length > 5 ? Path.of(args[5]) : OpeningBook.defaultPath(size, winLength);
+
+        long start = System.nanoTime();
+        OpeningBook.generate(file, size, winLength, maxPly, millis);
+        System.out.println("Wrote " + file + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static void selfPlay(String[] args) throws Exception {
+        long games = Long.parseLong(args[1]);
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int winLength = args.length > 3 ? Integer.parseInt(args[3]) : size;
+        String xPlayer = args.length > 4 ? args[4] : "random";
+        String oPlayer = args.length > 5 ? args[5] : "random";
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+        int randomPlies = args.length > 7 ? Integer.parseInt(args[7]) : 0;
+        Path log = args.length > 8 ? Path.of(args[8]) : null;
+
+        SelfPlay selfPlay = new SelfPlay(size, winLength, threads, SelfPlay.parsePlayer(xPlayer),
+                SelfPlay.parsePlayer(oPlayer), randomPlies, System.nanoTime());
+        Scoreboard scoreboard = new Scoreboard(2);
+        selfPlay.setScoreboard(scoreboard, "X:" + xPlayer, "O:" + oPlayer);
+        if (log != null) {
+            selfPlay.setLog(log);
+        }
+        long[] scores = selfPlay.run(games);
+        System.out.println("Player X: " + scores[0] + "\t\t\tPlayer O: " + scores[1] + "\t\t\tTies: " + scores[2]);
+        System.out.printf("%d games in %.2f s, %.0f games/sec on %d threads%n", games,
+                selfPlay.getElapsedNanos() / 1e9, selfPlay.getGamesPerSecond(), threads);
+        System.out.println("Standings: " + scoreboard.publish().leaders);
+        System.out.println("Metrics: " + Metrics.global().snapshot());
+        if (log != null) {
+            System.out.println("Games logged to " + SelfPlay.workerLog(log, 0) + " through " + SelfPlay.workerLog(log, threads - 1));
+        }
+    }
+
+    private static void tournament(String[] args) throws Exception {
+        int size = Integer.parseInt(args[1]);
+        int winLength = Integer.parseInt(args[2]);
+        long maxGames = Long.parseLong(args[3]);
+        int randomPlies = Integer.parseInt(args[4]);
+        String format = args[5];
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try (Tournament tournament = new Tournament(size, winLength, threads, maxGames, randomPlies,
+                System.nanoTime())) {
+            for (int i = 6; i < args.length; i++) {
+                // the same player entered twice gets a number so the standings tell them apart
+                String name = args[i];
+                for (int copy = 2; tournament.getNames().contains(name); copy++) {
+                    name = args[i] + "#" + copy;
+                }
+                tournament.addPlayer(name, SelfPlay.parsePlayer(args[i]));
+            }
+            if (format.startsWith("swiss:")) {
+                tournament.runSwiss(Integer.parseInt(format.substring("swiss:".length())));
+            } else if (format.equals("roundrobin")) {
+                tournament.runRoundRobin();
+            } else {
+                throw new IllegalArgumentException("unknown tournament format: " + format);
+            }
+            long games = 0;
+            for (Tournament.Pairing pairing : tournament.getPairings()) {
+                games += pairing.getGames();
+            }
+            System.out.print(tournament.report());
+            System.out.printf("%d games in %.2f s on %d threads%n", games, tournament.getElapsedNanos() / 1e9, threads);
+        }
+    }
+
+    private static void replay(String[] args) throws Exception {
+        GameRecord record = new GameRecord();
+        BackEnd board = null;
+        long[] scores = new long[3];
+        long mismatches = 0;
+
+        long start = System.nanoTime();
+        for (int i = 1; i < args.length; i++) {
+            try (GameLogReader reader = new GameLogReader(Path.of(args[i]))) {
+                while (reader.next(record)) {
+                    if (board == null || board.getNumRows() != record.getSize() || board.getWinLength() != record.getWinLength()) {
+                        board = new BitBoard(record.getSize(), record.getSize(), record.getWinLength());
+                    }
+                    scores[record.getResult()]++;
+                    if (record.replay(board) != record.getResult()) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long games = scores[0] + scores[1] + scores[2];
+        System.out.println("Player X: " + scores[0] + "\t\t\tPlayer O: " + scores[1] + "\t\t\tTies: " + scores[2]);
+        System.out.printf("%d games replayed in %.2f s, %.0f games/sec, %d results did not match%n", games,
+                elapsed / 1e9, elapsed == 0 ? 0 : games * 1e9 / elapsed, mismatches);
+    }
+
+    private static void analyze(String[] args) throws Exception {
+        int winLength = Integer.parseInt(args[1]);
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        String input = args.length > 4 ? args[4] : "-";
+        String output = args.length > 5 ? args[5] : "-";
+
+        BatchAnalyzer analyzer = new BatchAnalyzer(winLength, millis, threads);
+        try (BufferedReader in = input.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII))
+                : Files.newBufferedReader(Path.of(input), StandardCharsets.US_ASCII);
+             Writer out = output.equals("-")
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))
+                     : Files.newBufferedWriter(Path.of(output), StandardCharsets.US_ASCII)) {
+            long positions = analyzer.run(in, out);
+            // stdout may be the results, so the summary goes to stderr
+            System.err.printf("%d positions in %.2f s, %.0f positions/sec on %d threads%n", positions,
+                    analyzer.getElapsedNanos() / 1e9, analyzer.getPositionsPerSecond(), threads);
+        } finally {
+            analyzer.shutdown();
+        }
+    }
+
+    private static void measureSpeedup(String[] args) {
+        int size = Integer.parseInt(args[1]);
+        int winLength = Integer.parseInt(args[2]);
+        int depth = Integer.parseInt(args[3]);
+        int maxThreads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        BackEnd board = size * size <= BitBoard.MAX_CELLS
+                ? new BitBoard(size, size, winLength) : new BackEnd(size, size, winLength);
+        long singleThreadNanos = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            // best of a few cold-table runs, so the first one doesn't pay for the JIT warming up
+            long bestNanos = Long.MAX_VALUE;
+            String report = "";
+            // the depth limit ends the search, the time budget never does
+            try (ParallelSearch search = new ParallelSearch(TimeUnit.HOURS.toMillis(1), threads)) {
+                search.setMaxDepth(depth);
+                for (int run = 0; run < 5; run++) {
+                    search.getTable().clear();
+                    search.selectMove(board);
+                    if (search.getElapsedNanos() < bestNanos) {
+                        bestNanos = search.getElapsedNanos();
+                        report = search.report();
+                    }
+                }
+            }
+            if (threads == 1) {
+                singleThreadNanos = bestNanos;
+            }
+            System.out.printf("%d threads: %.1f ms, speedup %.2f, %s%n", threads, bestNanos / 1e6,
+                    (double) singleThreadNanos / bestNanos, report);
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static void solve(String[] args) throws Exception {
+        int size = Integer.parseInt(args[1]);
+        int winLength = Integer.parseInt(args[2]);
+        long minutes = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        Path checkpoint = args.length > 4 ? Path.of(args[4]) : null;
+        Path spillFile = args.length > 5 ? Path.of(args[5]) : null;
+        long spillMegabytes = args.length > 6 ? Long.parseLong(args[6]) : 1024;
+
+        int heapBits = ProofTable.slotBitsFor(Runtime.getRuntime().maxMemory() / 4);
+        int spillBits = ProofTable.slotBitsFor(spillMegabytes * 1024 * 1024);
+        // the spill file only belongs with the checkpoint it was written next to
+        boolean resume = checkpoint != null && Files.exists(checkpoint);
+        try (ProofTable table = new ProofTable(heapBits, spillFile, spillBits, size, size, winLength, resume)) {
+            ProofNumberSearch solver = new ProofNumberSearch(table);
+            if (minutes > 0) {
+                solver.setTimeBudget(TimeUnit.MINUTES.toMillis(minutes));
+            }
+            if (checkpoint != null) {
+                if (resume) {
+                    solver.resume(checkpoint, size, winLength);
+                    System.out.println("Resumed from " + checkpoint + " after " + solver.getNodes() + " nodes");
+                }
+                solver.setCheckpoint(checkpoint, TimeUnit.MINUTES.toMillis(5));
+            }
+
+            BackEnd board = size * size <= BitBoard.MAX_CELLS
+                    ? new BitBoard(size, size, winLength) : new BackEnd(size, size, winLength);
+            int result = solver.solve(board);
+            String outcome = result == Scoreboard.X_WINS ? "X wins" : result == Scoreboard.O_WINS ? "O wins"
+                    : result == Scoreboard.TIE ? "draw" : "unsolved, run again to continue";
+            System.out.printf("%dx%d, %d in a row: %s%n", size, size, winLength, outcome);
+            System.out.printf("%d nodes in %.2f s, %s%n", solver.getNodes(), solver.getElapsedNanos() / 1e9,
+                    solver.report());
+        }
+    }
+
+    private static void countPositions(String[] args) {
+        int size = Integer.parseInt(args[1]);
+        int winLength = Integer.parseInt(args[2]);
+        long megabytes = args.length > 3 ? Long.parseLong(args[3]) : Runtime.getRuntime().maxMemory() / (2 * 1024 * 1024);
+
+        PositionCodec codec = new PositionCodec(size, size);
+        PositionSet seen = new PositionSet(codec.getWords(), megabytes * 1024 * 1024);
+        BackEnd board = size * size <= BitBoard.MAX_CELLS
+                ? new BitBoard(size, size, winLength) : new BackEnd(size, size, winLength);
+        long start = System.nanoTime();
+        visitPositions(board, codec, seen, new long[codec.getWords()]);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%dx%d, %d in a row: %d positions in %.2f s, %d MB in %d word keys%n", size, size, winLength,
+                seen.size(), elapsed / 1e9, seen.getMemoryBytes() / (1024 * 1024), codec.getWords());
+    }
+
+    // every position reachable from this one, stopping at finished games
+    private static void visitPositions(BackEnd board, PositionCodec codec, PositionSet seen, long[] key) {
+        codec.encode(board.getBoard(), key, 0);
+        if (!seen.add(key, 0) || board.checkForWin() || board.isBoardFull()) {
+            return;
+        }
+        int numColumns = board.getNumColumns();
+        for (int cell = 0; cell < board.getNumRows() * numColumns; cell++) {
+            int row = cell / numColumns;
+            int col = cell % numColumns;
+            if (board.placeMark(row, col)) {
+                board.changePlayer();
+                visitPositions(board, codec, seen, key);
+                board.changePlayer();
+                board.clearMark(row, col);
+            }
+        }
+    }
+
+    private static void serve(String[] args) throws Exception {
+        int port = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long aiMillis = args.length > 3 ? Long.parseLong(args[3]) : 50;
+        Path cacheFile = args.length > 4 ? Path.of(args[4]) : null;
+        int cacheEntries = args.length > 5 ? Integer.parseInt(args[5]) : 100_000;
+
+        MoveCache cache = new MoveCache(cacheEntries);
+        if (cacheFile != null && Files.exists(cacheFile)) {
+            System.out.println("Loaded " + cache.load(cacheFile) + " cached moves from " + cacheFile);
+        }
+        GameServer server = new GameServer(port, threads, aiMillis, cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Move cache: " + cache.report());
+            if (cacheFile != null) {
+                try {
+                    cache.save(cacheFile);
+                } catch (IOException e) {
+                    System.out.println("Could not save the move cache: " + e.getMessage());
+                }
+            }
+        }));
+        Metrics.global().registerMBean();
+        Metrics.global().startReporting(10_000);
+        server.start();
+        System.out.println("Serving on port " + server.getPort() + " with " + threads + " worker threads");
+        server.serve();
+    }
+
+    private static void loadTest(String[] args) throws Exception {
+        InetSocketAddress address = new InetSocketAddress(args[1], Integer.parseInt(args[2]));
+        int connections = Integer.parseInt(args[3]);
+        int games = Integer.parseInt(args[4]);
+        int size = args.length > 5 ? Integer.parseInt(args[5]) : 3;
+        int winLength = args.length > 6 ? Integer.parseInt(args[6]) : size;
+
+        LoadClient client = new LoadClient(address, connections, games, size, winLength);
+        client.run();
+        System.out.println(client.report());
+    }
+}
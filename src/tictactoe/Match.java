@@ -0,0 +1,353 @@
+package tictactoe;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Manages gameplay for matches and games.
+ * @author Colin Flueck
+ */
+public class Match {
+
+    private static final Logger LOG = Logger.getLogger(Match.class.getName());
+
+    // time the computer may think about each move
+    private static final long AI_TIME_BUDGET_MILLIS = 1000;
+
+    // from this size up the computer uses tree search with random playouts instead of alpha-beta
+    private static final int MONTE_CARLO_MIN_SIZE = 6;
+
+    // milliseconds the search gets per position when a book is built for a bigger board
+    private static final long BOOK_MILLIS_PER_POSITION = 200;
+
+    // every finished game is appended here, see GameLogReader
+    private static final Path GAME_LOG = Path.of("games.log");
+
+    private BackEnd gameBoard;
+    private ParallelSearch computer;
+    private MonteCarloSearch monteCarlo;
+    private BookPlayer bookPlayer;
+    private FrontEnd display;
+
+    // every turn runs here in order, so the game state is only touched by this one thread
+    private final ExecutorService turns;
+
+    private volatile boolean playGame = true;
+    private boolean gameOver;
+
+    // squares played in the current game, in order, and where they're logged
+    private final int[] moves = new int[GameRecord.MAX_MOVES];
+    private GameLogWriter gameLog;
+
+    private final Scoreboard scoreboard = new Scoreboard(10);
+    private int numRows;
+    private int numColumns;
+    private int winLength;
+
+    // grid size chosen in settings, applied when the next game starts
+    private volatile int nextGridSize;
+    private volatile int nextWinLength;
+
+    /**
+     * Match class handles backend, frontend, and gameplay flow.
+     * Matches are composed of games which involve numerous turns.
+     * Turns are driven by clicks: each one is queued to the turn thread, which places the
+     * mark, computes the reply away from the Swing event thread, and hands board updates
+     * back to Swing with invokeLater.
+     */
+    public Match() {
+        numRows = 3;
+        numColumns = 3;
+        winLength = 3;
+        nextGridSize = numRows;
+        nextWinLength = winLength;
+        gameBoard = new BitBoard(numRows, numColumns, winLength);
+        gameBoard.initializeBoard(numRows, numColumns);
+
+        turns = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "match-turns");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // the search table, opening book and game log are set up while the window opens,
+        // queued first so no turn can run before the computer player is ready
+        turns.execute(this::prepareComputer);
+
+        try {
+            SwingUtilities.invokeAndWait(() -> display = new FrontEnd(this));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while opening the window", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("could not open the window", e.getCause());
+        }
+
+        turns.execute(this::newGame);
+    }
+
+
+    // add newMatch for when settings change (size, etc.)
+
+    // runs on the turn thread
+    private void prepareComputer() {
+        computer = new ParallelSearch(AI_TIME_BUDGET_MILLIS, Runtime.getRuntime().availableProcessors());
+        gameBoard.setComputerPlayer(choosePlayer());
+        try {
+            gameLog = new GameLogWriter(GAME_LOG);
+        } catch (IOException e) {
+            LOG.warning("Games will not be logged: " + e.getMessage());
+        }
+        Metrics.global().registerMBean();
+    }
+
+    // runs on the turn thread
+    private void newGame() {
+
+        if (nextGridSize != numRows || nextWinLength != winLength) {
+            applyGridSize(nextGridSize, nextWinLength);
+        }
+
+        // reset backend
+        gameBoard.setPlayer('x');
+        gameBoard.initializeBoard(numRows,numColumns);
+        gameOver = false;
+
+        //update gui
+        SwingUtilities.invokeLater(() -> {
+            display.clearBoard();
+            display.showToMove('x');
+        });
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("\n" + gameBoard);
+        }
+    }
+
+    // called by the gui when a square is clicked, the turn itself runs on the turn thread
+    public void setPlayerSelection(int row, int column) {
+        turns.execute(() -> playTurn(row, column));
+    }
+
+    private void playTurn(int row, int col) {
+
+        // ignores clicks after the game ends and on taken squares
+        if (gameOver || gameBoard.getCurrentPlayerMark() != 'x' || !gameBoard.placeMark(row, col)) {
+            return;
+        }
+        moves[gameBoard.getMarkCount() - 1] = gameBoard.getLastMove();
+        int computerMove = -1;
+
+        if (!gameBoard.checkForWin() && !gameBoard.isBoardFull()) {
+            gameBoard.changePlayer();
+            gameBoard.computerPlaceMark();
+            computerMove = gameBoard.getLastMove();
+            moves[gameBoard.getMarkCount() - 1] = computerMove;
+            if (LOG.isLoggable(Level.FINE)) {
+                logComputerMove();
+            }
+        }
+        boolean over = gameBoard.checkForWin() || gameBoard.isBoardFull();
+        if (!over) {
+            gameBoard.changePlayer();
+        }
+        showTurn(row, col, computerMove, gameBoard.getCurrentPlayerMark());
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("\n" + gameBoard);
+        }
+        if (over) {
+            endGame();
+        }
+    }
+
+    // called from the menu, takes back the computer's reply and the move before it
+    public void undo() {
+        turns.execute(this::undoTurn);
+    }
+
+    // called from the menu, plays an undone move and the computer's reply again
+    public void redo() {
+        turns.execute(this::redoTurn);
+    }
+
+    private void undoTurn() {
+        if (gameOver) {
+            return;
+        }
+        do {
+            int cell = gameBoard.getLastMove();
+            if (!gameBoard.undo()) {
+                break;
+            }
+            showMark(cell, '-');
+        } while (gameBoard.getCurrentPlayerMark() != 'x');
+        showToMove();
+    }
+
+    // undone moves never ended the game, the game ends before anything could be undone
+    private void redoTurn() {
+        if (gameOver) {
+            return;
+        }
+        do {
+            char mark = gameBoard.getCurrentPlayerMark();
+            if (!gameBoard.redo()) {
+                break;
+            }
+            showMark(gameBoard.getLastMove(), mark);
+        } while (gameBoard.getCurrentPlayerMark() != 'x');
+        showToMove();
+    }
+
+    private void endGame() {
+        gameOver = true;
+        String message;
+        int result;
+
+        if (!gameBoard.checkForWin() && gameBoard.isBoardFull()) {
+            message = "The game was a tie!";
+            result = Scoreboard.TIE;
+        }
+        else {
+            message = "Player " + Character.toUpperCase(gameBoard.getCurrentPlayerMark()) + " Wins!";
+            result = gameBoard.getCurrentPlayerMark() == 'x' ? Scoreboard.X_WINS : Scoreboard.O_WINS;
+        }
+        scoreboard.recordGame("you", "computer", result);
+        Metrics.global().recordGame();
+        logGame(result);
+
+        // update match scores
+        long[] scores = scoreboard.getTotals();
+        String scoreMessage = "Player X: " + scores[0] + "\t\t\tPlayer O: " + scores[1] + "\t\t\tTies: " + scores[2];
+        LOG.info(scoreMessage);
+
+        SwingUtilities.invokeLater(() -> {
+            display.updateScore(scores);
+            display.playAgainMessage(message);
+            if (playGame) {
+                turns.execute(this::newGame);
+            } else {
+                LOG.info("Thanks for playing!");
+                turns.execute(this::closeComputer);
+            }
+        });
+    }
+
+    // runs on the turn thread once no more games will be played, stops the search threads
+    private void closeComputer() {
+        if (computer != null) {
+            computer.close();
+        }
+        if (monteCarlo != null) {
+            monteCarlo.close();
+        }
+    }
+
+    // how the computer found its move, only called when FINE is enabled
+    private void logComputerMove() {
+        if (bookPlayer != null && bookPlayer.wasLastMoveFromBook()) {
+            LOG.fine("Player O plays from the opening book");
+        } else if (gameBoard.getComputerPlayer() == monteCarlo) {
+            LOG.fine(String.format("Player O ran %d playouts, %.0f per second on %d threads", monteCarlo.getPlayouts(),
+                    monteCarlo.getPlayoutsPerSecond(), monteCarlo.getThreads()));
+        } else {
+            LOG.fine("Player O searched " + computer.getNodesSearched() + " positions to depth " + computer.getDepthReached()
+                    + " on " + computer.getThreads() + " threads");
+        }
+    }
+
+    // a few games an hour at most, so each one is flushed straight away
+    private void logGame(int result) {
+        if (gameLog == null) {
+            return;
+        }
+        try {
+            gameLog.append(numRows, winLength, result, moves, gameBoard.getMarkCount());
+            gameLog.flush();
+        } catch (IOException e) {
+            LOG.warning("Could not log the game: " + e.getMessage());
+        }
+    }
+
+    // sends only the squares marked this turn and who moves next to the gui, as one task on
+    // the event thread, so the gui never reads the board while this thread changes it
+    private void showTurn(int row, int col, int computerMove, char toMove) {
+        int computerRow = computerMove / numColumns;
+        int computerCol = computerMove % numColumns;
+        SwingUtilities.invokeLater(() -> {
+            display.showMark(row, col, 'x');
+            if (computerMove != -1) {
+                display.showMark(computerRow, computerCol, 'o');
+            }
+            display.showToMove(toMove);
+        });
+    }
+
+    private void showToMove() {
+        char toMove = gameBoard.getCurrentPlayerMark();
+        SwingUtilities.invokeLater(() -> display.showToMove(toMove));
+    }
+
+    private void showMark(int cell, char mark) {
+        int row = cell / numColumns;
+        int col = cell % numColumns;
+        SwingUtilities.invokeLater(() -> display.showMark(row, col, mark));
+    }
+
+    // resizes backend and gui between games
+    private void applyGridSize(int size, int winLength) {
+        numRows = size;
+        numColumns = size;
+        this.winLength = winLength;
+        gameBoard.setWinLength(winLength);
+        gameBoard.setGridSize(numRows, numColumns);
+        SwingUtilities.invokeLater(() -> display.setGridSize(size));
+        gameBoard.setComputerPlayer(choosePlayer());
+    }
+
+    // plays from the opening book when there is one for this board, 3x3 builds its own on first
+    // run, and big boards use monte carlo search
+    private Player choosePlayer() {
+        bookPlayer = null;
+        if (numRows >= MONTE_CARLO_MIN_SIZE) {
+            if (monteCarlo == null) {
+                monteCarlo = new MonteCarloSearch(AI_TIME_BUDGET_MILLIS, Runtime.getRuntime().availableProcessors());
+            }
+            return monteCarlo;
+        }
+        Path bookFile = OpeningBook.defaultPath(numRows, winLength);
+        if (numRows == 3 || Files.exists(bookFile)) {
+            try {
+                OpeningBook book = OpeningBook.loadOrGenerate(bookFile, numRows, winLength, 0, BOOK_MILLIS_PER_POSITION);
+                bookPlayer = new BookPlayer(book, computer);
+                return bookPlayer;
+            } catch (IOException e) {
+                LOG.warning("Opening book unavailable: " + e.getMessage());
+            }
+        }
+        return computer;
+    }
+
+    // called from the settings menu, the new size is used from the next game on
+    public void setGridSize(int size, int winLength) {
+        nextGridSize = size;
+        nextWinLength = winLength;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    public void setPlayGame(boolean playGame) {
+        this.playGame = playGame;
+    }
+
+}
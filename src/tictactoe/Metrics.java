@@ -0,0 +1,209 @@
+package tictactoe;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Process wide counters for the game loop and the computer players: computer move latency
+ * and nodes per move histograms, games played and win checks.  Everything is a LongAdder or
+ * a Histogram, so recording from many threads costs a few nanoseconds and never blocks.
+ * Boards count their own win checks in a plain field and the search adds them up here once
+ * per move, so the innermost loop doesn't touch shared memory.
+ *
+ * Readable over JMX once registerMBean is called, and logged at INFO every period once
+ * startReporting is.  Either one also starts a sampler that works out the games per second
+ * once a second, so reading the rate doesn't change it.
+ */
+class Metrics implements MetricsMBean {
+
+    private static final Logger LOG = Logger.getLogger(Metrics.class.getName());
+    private static final Metrics GLOBAL = new Metrics();
+
+    private static final long SAMPLE_PERIOD_MILLIS = 1000;
+
+    private final Histogram moveNanos = new Histogram();
+    private final Histogram nodesPerMove = new Histogram();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder winChecks = new LongAdder();
+
+    // only written by the sampler (and reset)
+    private volatile Rate rate = new Rate(0, System.nanoTime(), 0);
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> reporting;
+    private boolean registered;
+
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    // a computer move that took nanos and searched nodes positions (or playouts)
+    public void recordMove(long nanos, long nodes) {
+        moveNanos.record(nanos);
+        nodesPerMove.record(nodes);
+    }
+
+    public void recordGame() {
+        games.increment();
+    }
+
+    public void recordGames(long count) {
+        games.add(count);
+    }
+
+    public void recordWinChecks(long count) {
+        winChecks.add(count);
+    }
+
+    public Histogram getMoveNanos() {
+        return moveNanos;
+    }
+
+    public Histogram getNodesPerMove() {
+        return nodesPerMove;
+    }
+
+    // registers the JMX bean once, later calls do nothing
+    public synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(this, MetricsMBean.class),
+                    new ObjectName("tictactoe:type=Metrics"));
+            registered = true;
+            startSampling();
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "could not register the metrics bean", e);
+        }
+    }
+
+    // logs a snapshot every periodMillis on the sampler's daemon thread
+    public synchronized void startReporting(long periodMillis) {
+        if (reporting == null) {
+            startSampling();
+            reporting = scheduler.scheduleAtFixedRate(() -> LOG.info(snapshot()), periodMillis, periodMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stopReporting() {
+        if (reporting != null) {
+            reporting.cancel(false);
+            reporting = null;
+        }
+    }
+
+    // samples the games per second once a second from now on, later calls do nothing
+    public synchronized void startSampling() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-sampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::sample, SAMPLE_PERIOD_MILLIS, SAMPLE_PERIOD_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // replaces the rate with the one since the previous sample, called by the sampler
+    void sample() {
+        long now = System.nanoTime();
+        long played = games.sum();
+        Rate previous = rate;
+        double perSecond = now == previous.nanos ? 0 : (played - previous.games) * 1e9 / (now - previous.nanos);
+        rate = new Rate(played, now, perSecond);
+    }
+
+    // one line summary
+    public String snapshot() {
+        return String.format("games %d (%.0f/s), computer moves %d, latency ms mean %.2f p50 %.2f p99 %.2f max %.2f,"
+                        + " nodes/move mean %.0f p99 %d, win checks %d",
+                getGamesPlayed(), getGamesPerSecond(), getComputerMoves(), getMoveLatencyMeanMillis(),
+                getMoveLatencyP50Millis(), getMoveLatencyP99Millis(), getMoveLatencyMaxMillis(),
+                getNodesPerMoveMean(), getNodesPerMoveP99(), getWinChecks());
+    }
+
+    @Override
+    public long getGamesPlayed() {
+        return games.sum();
+    }
+
+    // games per second between the last two samples, 0 until the sampler has run
+    @Override
+    public double getGamesPerSecond() {
+        return rate.gamesPerSecond;
+    }
+
+    @Override
+    public long getComputerMoves() {
+        return moveNanos.getCount();
+    }
+
+    @Override
+    public double getMoveLatencyMeanMillis() {
+        return moveNanos.getMean() / 1e6;
+    }
+
+    @Override
+    public double getMoveLatencyP50Millis() {
+        return moveNanos.getPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getMoveLatencyP99Millis() {
+        return moveNanos.getPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getMoveLatencyMaxMillis() {
+        return moveNanos.getMax() / 1e6;
+    }
+
+    @Override
+    public double getNodesPerMoveMean() {
+        return nodesPerMove.getMean();
+    }
+
+    @Override
+    public long getNodesPerMoveP99() {
+        return nodesPerMove.getPercentile(99);
+    }
+
+    @Override
+    public long getWinChecks() {
+        return winChecks.sum();
+    }
+
+    @Override
+    public void reset() {
+        moveNanos.reset();
+        nodesPerMove.reset();
+        games.reset();
+        winChecks.reset();
+        rate = new Rate(0, System.nanoTime(), 0);
+    }
+
+    // games played at a sample and the rate since the one before
+    private static final class Rate {
+        final long games;
+        final long nanos;
+        final double gamesPerSecond;
+
+        Rate(long games, long nanos, double gamesPerSecond) {
+            this.games = games;
+            this.nanos = nanos;
+            this.gamesPerSecond = gamesPerSecond;
+        }
+    }
+}
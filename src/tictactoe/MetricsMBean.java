@@ -0,0 +1,30 @@
+package tictactoe;
+
+/**
+ * JMX view of Metrics, registered as tictactoe:type=Metrics.  Latencies are in
+ * milliseconds.  JMX only accepts public interfaces, which is why this one is public.
+ */
+public interface MetricsMBean {
+
+    long getGamesPlayed();
+
+    double getGamesPerSecond();
+
+    long getComputerMoves();
+
+    double getMoveLatencyMeanMillis();
+
+    double getMoveLatencyP50Millis();
+
+    double getMoveLatencyP99Millis();
+
+    double getMoveLatencyMaxMillis();
+
+    double getNodesPerMoveMean();
+
+    long getNodesPerMoveP99();
+
+    long getWinChecks();
+
+    void reset();
+}
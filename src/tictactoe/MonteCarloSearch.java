@@ -0,0 +1,350 @@
+package tictactoe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Monte Carlo tree search (UCT) computer player for boards too big to search exhaustively.
+ * Every thread grows its own tree from the same position with its own random playouts,
+ * and the root visit counts are added up at the end to pick the move (root
+ * parallelization), so the threads share nothing while they run.
+ *
+ * Trees are kept in parallel primitive arrays instead of one object per node, children of
+ * a node in one contiguous block.  The arrays are sized once from the memory cap, and when
+ * a tree fills up it stops growing and keeps running playouts from its leaves.  A move
+ * stops at the time budget or the playout budget, whichever comes first.  With more than
+ * one thread the worker threads live until close.
+ */
+class MonteCarloSearch implements Player {
+
+    // exploration constant for rewards between 0 and 1
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    // move, child count, first child, visits and reward
+    private static final int BYTES_PER_NODE = 1 + 1 + 4 + 4 + 4;
+
+    // 64 MB across all trees
+    private static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+
+    // how many playouts run between checks of the clock
+    private static final int TIME_CHECK_INTERVAL = 64;
+
+    private final long timeBudgetMillis;
+    private final long playoutBudget;
+    private final Tree[] trees;
+    private final ExecutorService workers;
+
+    private long playouts;
+    private long elapsedNanos;
+    private long treeNodes;
+
+    public MonteCarloSearch(long timeBudgetMillis, int threads) {
+        this(timeBudgetMillis, 0, threads, DEFAULT_MEMORY_BYTES);
+    }
+
+    /**
+     * @param timeBudgetMillis time per move, 0 for no limit
+     * @param playoutBudget playouts per move across all threads, 0 for no limit
+     * @param memoryBytes cap on the size of all the trees together
+     */
+    public MonteCarloSearch(long timeBudgetMillis, long playoutBudget, int threads, long memoryBytes) {
+        this(timeBudgetMillis, playoutBudget, threads, memoryBytes, new SplittableRandom());
+    }
+
+    /**
+     * Same, with every tree's playouts split off the given generator, so a fixed seed and a
+     * playout budget (rather than a time budget) replay the same moves.
+     */
+    public MonteCarloSearch(long timeBudgetMillis, long playoutBudget, int threads, long memoryBytes,
+            SplittableRandom random) {
+        if (timeBudgetMillis <= 0 && playoutBudget <= 0) {
+            throw new IllegalArgumentException("needs a time or playout budget");
+        }
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.playoutBudget = playoutBudget;
+        int nodesPerTree = (int) Math.min(Integer.MAX_VALUE, memoryBytes / threads / BYTES_PER_NODE);
+        this.trees = new Tree[threads];
+        for (int t = 0; t < threads; t++) {
+            trees[t] = new Tree(nodesPerTree, random.split());
+        }
+        this.workers = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int selectMove(BackEnd board) {
+        int cells = board.getNumRows() * board.getNumColumns();
+        if (board.checkForWin() || board.getMarkCount() == cells) {
+            return -1;
+        }
+        if (cells > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("boards of up to " + Byte.MAX_VALUE + " squares");
+        }
+
+        long start = System.nanoTime();
+        long deadline = timeBudgetMillis > 0 ? start + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        for (int t = 0; t < trees.length; t++) {
+            long share = playoutBudget / trees.length + (t < playoutBudget % trees.length ? 1 : 0);
+            trees[t].prepare(board, playoutBudget > 0 ? share : Long.MAX_VALUE, deadline);
+        }
+
+        if (workers == null) {
+            trees[0].search();
+        } else {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (Tree tree : trees) {
+                tasks.add(() -> {
+                    tree.search();
+                    return null;
+                });
+            }
+            try {
+                for (var result : workers.invokeAll(tasks)) {
+                    result.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while searching", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        elapsedNanos = System.nanoTime() - start;
+
+        // merge the root children of every tree by square and play the most visited one
+        long[] visits = new long[cells];
+        playouts = 0;
+        treeNodes = 0;
+        Metrics metrics = Metrics.global();
+        for (Tree tree : trees) {
+            tree.addRootVisits(visits);
+            playouts += tree.playouts;
+            treeNodes += tree.size;
+            metrics.recordWinChecks(tree.position.drainWinChecks());
+        }
+        metrics.recordMove(elapsedNanos, playouts);
+        int bestMove = -1;
+        for (int cell = 0; cell < cells; cell++) {
+            if (board.isEmpty(cell) && (bestMove == -1 || visits[cell] > visits[bestMove])) {
+                bestMove = cell;
+            }
+        }
+        return bestMove;
+    }
+
+    // playouts run for the last move, across all threads
+    // stops the worker threads, the search can't be used after this
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    public double getPlayoutsPerSecond() {
+        return elapsedNanos == 0 ? 0 : playouts * 1e9 / elapsedNanos;
+    }
+
+    // nodes in all the trees after the last move
+    public long getTreeNodes() {
+        return treeNodes;
+    }
+
+    public int getThreads() {
+        return trees.length;
+    }
+
+    /**
+     * One thread's tree and scratch board.  Node 0 is the root.  The reward of a node is
+     * counted in half points (2 for a win, 1 for a tie) for the player who made the move
+     * leading to it.
+     */
+    private static final class Tree {
+        final byte[] move;
+        final byte[] childCount;
+        final int[] firstChild;
+        final int[] visits;
+        final int[] reward;
+        final SplittableRandom random;
+
+        int size;
+        long playouts;
+
+        BackEnd position;
+        char rootMark;
+        int numColumns;
+        long budget;
+        long deadline;
+
+        // squares played on the scratch board this iteration, and the legal moves while expanding
+        int[] played;
+        int[] path;
+        int[] empty;
+
+        Tree(int capacity, SplittableRandom random) {
+            move = new byte[capacity];
+            childCount = new byte[capacity];
+            firstChild = new int[capacity];
+            visits = new int[capacity];
+            reward = new int[capacity];
+            this.random = random;
+        }
+
+        void prepare(BackEnd board, long budget, long deadline) {
+            if (position == null || !position.hasSameShape(board)) {
+                position = board.copy();
+                int cells = board.getNumRows() * board.getNumColumns();
+                played = new int[cells];
+                path = new int[cells + 1];
+                empty = new int[cells];
+            } else {
+                position.copyFrom(board);
+            }
+            rootMark = board.getCurrentPlayerMark();
+            numColumns = board.getNumColumns();
+            this.budget = budget;
+            this.deadline = deadline;
+            playouts = 0;
+            size = 1;
+            childCount[0] = 0;
+            visits[0] = 0;
+            reward[0] = 0;
+        }
+
+        void search() {
+            while (playouts < budget
+                    && ((playouts % TIME_CHECK_INTERVAL) != 0 || System.nanoTime() < deadline)) {
+                iterate();
+                playouts++;
+            }
+        }
+
+        void iterate() {
+            int depth = 0;
+            int plays = 0;
+            int node = 0;
+            path[0] = 0;
+            // X_WINS, O_WINS or TIE once the game is decided
+            int result = -1;
+
+            // selection, down the tree by UCT until a node without children
+            while (childCount[node] > 0) {
+                node = selectChild(node);
+                path[++depth] = node;
+                result = play(move[node], plays++);
+                if (result != -1) {
+                    break;
+                }
+            }
+
+            // expansion, a leaf gets its children on its second visit
+            if (result == -1 && (visits[node] > 0 || node == 0) && expand(node)) {
+                node = firstChild[node];
+                path[++depth] = node;
+                result = play(move[node], plays++);
+            }
+
+            // simulation, random moves to the end of the game
+            int extra = plays;
+            while (result == -1) {
+                result = play(position.randomEmptyCell(random), extra++);
+            }
+
+            // backpropagation, a node at odd depth was reached by a move of the side to move at the root
+            int rootResult = rootMark == 'x' ? Scoreboard.X_WINS : Scoreboard.O_WINS;
+            for (int d = 0; d <= depth; d++) {
+                int n = path[d];
+                visits[n]++;
+                if (result == Scoreboard.TIE) {
+                    reward[n] += 1;
+                } else if ((result == rootResult) == (d % 2 == 1)) {
+                    reward[n] += 2;
+                }
+            }
+
+            for (int i = extra - 1; i >= 0; i--) {
+                position.clearMark(played[i] / numColumns, played[i] % numColumns);
+            }
+            position.setPlayer(rootMark);
+        }
+
+        // plays a square for the side to move, returns the result if that ends the game or -1
+        int play(int cell, int index) {
+            char mover = position.getCurrentPlayerMark();
+            position.placeMark(cell / numColumns, cell % numColumns);
+            played[index] = cell;
+            if (position.checkForWin()) {
+                return mover == 'x' ? Scoreboard.X_WINS : Scoreboard.O_WINS;
+            }
+            if (position.isBoardFull()) {
+                return Scoreboard.TIE;
+            }
+            position.changePlayer();
+            return -1;
+        }
+
+        int selectChild(int node) {
+            int first = firstChild[node];
+            int count = childCount[node];
+            double logVisits = Math.log(visits[node]);
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int c = first; c < first + count; c++) {
+                if (visits[c] == 0) {
+                    return c;
+                }
+                double value = reward[c] / (2.0 * visits[c]) + EXPLORATION * Math.sqrt(logVisits / visits[c]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        // gives node one child per empty square, false once the tree is full
+        boolean expand(int node) {
+            int count = position.getLegalMoves(empty);
+            if (size + count > move.length) {
+                return false;
+            }
+            int first = size;
+            for (int i = 0; i < count; i++) {
+                int child = first + i;
+                move[child] = (byte) empty[i];
+                childCount[child] = 0;
+                visits[child] = 0;
+                reward[child] = 0;
+            }
+            // the first child gets played right away, so shuffle which square that is
+            int swap = first + random.nextInt(count);
+            byte firstMove = move[first];
+            move[first] = move[swap];
+            move[swap] = firstMove;
+
+            size += count;
+            firstChild[node] = first;
+            childCount[node] = (byte) count;
+            return true;
+        }
+
+        void addRootVisits(long[] total) {
+            int first = firstChild[0];
+            for (int c = first; c < first + childCount[0]; c++) {
+                total[move[c]] += visits[c];
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache of computer moves keyed by position.  Keys are canonical, so
+ * rotations and reflections of a position share an entry, see CachingPlayer.  The cache is
+ * split into segments behind their own locks, so threads looking up different positions
+ * rarely wait on each other.  Hit, miss, eviction and load time metrics are kept for sizing.
+ *
+ * A segment is primitive long arrays like TranspositionTable, so lookups and stores don't
+ * box or allocate.  Each key maps to a bucket of WAYS slots, and every hit or store stamps
+ * its slot from the segment's clock.  A full bucket makes way by dropping its oldest stamp,
+ * the least recently used entry of the bucket.
+ *
+ * The contents can be saved and loaded, so a fresh process starts with the answers an
+ * earlier one already computed.  The file is the magic "TTMC", a version int, an entry
+ * count and then key and value longs, least recently used first.
+ */
+class MoveCache {
+
+    // returned by get when the position isn't cached
+    public static final long NO_ENTRY = Long.MIN_VALUE;
+
+    private static final int MAGIC = 0x54544D43; // "TTMC"
+    private static final int VERSION = 1;
+    private static final int SEGMENTS = 16;
+    private static final int WAYS = 8;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+
+    public MoveCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    // value stored for key, or NO_ENTRY
+    public long get(long key) {
+        Segment segment = segment(key);
+        long value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == NO_ENTRY) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(long key, long value) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    // records how long computing a missing value took
+    public void recordLoad(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+        maxLoadNanos.accumulate(nanos);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getMeanLoadMillis() {
+        long count = loads.sum();
+        return count == 0 ? 0 : loadNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxLoadMillis() {
+        return maxLoadNanos.get() / 1e6;
+    }
+
+    public String report() {
+        return String.format("%d/%d entries, hit rate %.1f%%, %d evictions, load %.2f ms mean %.2f ms max",
+                size(), maxEntries, 100 * getHitRate(), getEvictions(), getMeanLoadMillis(), getMaxLoadMillis());
+    }
+
+    /**
+     * Writes every entry to file, through a temporary file so a reader never sees half of
+     * one.  Entries added while saving may be left out.
+     */
+    public void save(Path file) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.collect(entries);
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(12 + 16 * entries.size());
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(entries.size());
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putLong(entry[1]);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the entries saved in file, keeping the most recently used ones if there are more
+     * than fit.
+     * @return the number of entries read
+     */
+    public int load(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("not a move cache: " + file);
+        }
+        int count = buffer.getInt();
+        if (buffer.remaining() != 16L * count) {
+            throw new IOException("truncated move cache: " + file);
+        }
+        for (int i = 0; i < count; i++) {
+            put(buffer.getLong(), buffer.getLong());
+        }
+        return count;
+    }
+
+    private Segment segment(long key) {
+        return segments[(int) (mix(key) >>> 60)];
+    }
+
+    private static long mix(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * One lock's share of the cache: keys, values and stamps in parallel arrays.  A stamp of
+     * 0 marks an empty slot, the clock starts at 1.  Guarded by the segment's monitor.
+     */
+    private final class Segment {
+        private final long[] keys;
+        private final long[] values;
+        private final long[] stamps;
+        private final int buckets;
+        private long clock;
+        private int size;
+
+        Segment(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+            stamps = new long[capacity];
+            buckets = (capacity + WAYS - 1) / WAYS;
+        }
+
+        long get(long key) {
+            int start = bucket(key);
+            int end = Math.min(start + WAYS, keys.length);
+            for (int slot = start; slot < end; slot++) {
+                if (stamps[slot] != 0 && keys[slot] == key) {
+                    stamps[slot] = ++clock;
+                    return values[slot];
+                }
+            }
+            return NO_ENTRY;
+        }
+
+        void put(long key, long value) {
+            int start = bucket(key);
+            int end = Math.min(start + WAYS, keys.length);
+            int victim = start;
+            for (int slot = start; slot < end; slot++) {
+                if (stamps[slot] == 0 || keys[slot] == key) {
+                    if (stamps[slot] == 0) {
+                        size++;
+                    }
+                    victim = slot;
+                    break;
+                }
+                if (stamps[slot] < stamps[victim]) {
+                    victim = slot;
+                }
+            }
+            if (stamps[victim] != 0 && keys[victim] != key) {
+                evictions.increment();
+            }
+            keys[victim] = key;
+            values[victim] = value;
+            stamps[victim] = ++clock;
+        }
+
+        // first slot of the key's bucket, from bits the segment choice doesn't use
+        private int bucket(long key) {
+            long bits = (mix(key) >>> 28) & 0xFFFFFFFFL;
+            return (int) (bits * buckets >>> 32) * WAYS;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            Arrays.fill(stamps, 0);
+            size = 0;
+        }
+
+        // adds the entries as {key, value}, least recently used first
+        void collect(List<long[]> entries) {
+            List<long[]> stamped = new ArrayList<>(size);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (stamps[slot] != 0) {
+                    stamped.add(new long[] {stamps[slot], keys[slot], values[slot]});
+                }
+            }
+            stamped.sort(Comparator.comparingLong(entry -> entry[0]));
+            for (long[] entry : stamped) {
+                entries.add(new long[] {entry[1], entry[2]});
+            }
+        }
+    }
+}
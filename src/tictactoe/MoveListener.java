@@ -0,0 +1,16 @@
+package tictactoe;
+
+/**
+ * Told about every change to a BackEnd's position, so derived state (like the threat
+ * counts in ThreatEvaluator) can be kept up to date move by move instead of recomputed.
+ * Called on the thread that changes the board.
+ */
+interface MoveListener {
+
+    void markPlaced(int cell, char mark);
+
+    void markCleared(int cell, char mark);
+
+    // the whole position was replaced (a new game, a resize or copyFrom), rebuild from board
+    void positionReset(BackEnd board);
+}
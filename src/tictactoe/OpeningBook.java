@@ -0,0 +1,309 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Precomputed best moves and game values, stored in a compact binary file and memory
+ * mapped at runtime so a lookup needs no search.
+ *
+ * Small boards (3x3) are solved completely and stored densely: the table is indexed by
+ * the base-3 position index (sum of digit * 3^square, with - = 0, x = 1, o = 2), so a
+ * lookup is one array read.  Bigger boards store the openings up to a given number of
+ * plies in an open-addressed table keyed by canonical Zobrist hash, with each position
+ * graded by AlphaBetaSearch; values the search couldn't prove are stored as unknown.
+ *
+ * Every entry is a short: the low byte is move + 1 (0 = no entry), the next two bits the
+ * value for the side to move.  Hashed moves are stored in the canonical symmetry's frame.
+ */
+class OpeningBook {
+
+    public static final int UNKNOWN = 0;
+    public static final int WIN = 1;
+    public static final int DRAW = 2;
+    public static final int LOSS = 3;
+
+    private static final int MAGIC = 0x54545442; // "TTTB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final byte DENSE = 0;
+    private static final byte HASHED = 1;
+
+    // largest board solved completely, 3^9 entries
+    private static final int MAX_DENSE_CELLS = 9;
+
+    // positions collected for a hashed book, far more than a book file could use
+    private static final long MAX_HASHED_BYTES = 1L << 30;
+
+    private final int numRows;
+    private final int numColumns;
+    private final int winLength;
+    private final int maxPly;
+    private final boolean dense;
+    private final PositionCodec codec;
+    private final int slotMask;
+    private final MappedByteBuffer buffer;
+
+    private OpeningBook(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+            throw new IOException("not an opening book file");
+        }
+        numRows = buffer.get(5);
+        numColumns = buffer.get(6);
+        winLength = buffer.get(7);
+        maxPly = buffer.get(8);
+        dense = buffer.get(9) == DENSE;
+        codec = new PositionCodec(numRows, numColumns);
+        slotMask = buffer.getInt(12) - 1;
+    }
+
+    public static OpeningBook load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // loads the book, generating it first if the file doesn't exist yet
+    public static OpeningBook loadOrGenerate(Path file, int size, int winLength, int maxPly,
+                                             long millisPerPosition) throws IOException {
+        if (!Files.exists(file)) {
+            generate(file, size, winLength, maxPly, millisPerPosition);
+        }
+        return load(file);
+    }
+
+    // default file name for a board, e.g. book-3x3-k3.bin
+    public static Path defaultPath(int size, int winLength) {
+        return Path.of("book-" + size + "x" + size + "-k" + winLength + ".bin");
+    }
+
+    /**
+     * Entry for the position on board, or 0 when the book doesn't cover it.
+     * Use move() and value() to unpack it.
+     */
+    public int probe(BackEnd board) {
+        if (board.getNumRows() != numRows || board.getNumColumns() != numColumns
+                || board.getWinLength() != winLength || board.getMarkCount() > maxPly) {
+            return 0;
+        }
+        if (dense) {
+            // the dense table follows normal play, where X always moves first
+            char toMove = board.getMarkCount() % 2 == 0 ? 'x' : 'o';
+            if (board.getCurrentPlayerMark() != toMove) {
+                return 0;
+            }
+            return buffer.getShort(HEADER_BYTES + 2 * (int) codec.rank(board.getBoard())) & 0xFFFF;
+        }
+        long key = hashKey(board);
+        int slotCount = slotMask + 1;
+        for (int slot = mix(key) & slotMask; ; slot = (slot + 1) & slotMask) {
+            int entry = buffer.getShort(HEADER_BYTES + 8 * slotCount + 2 * slot) & 0xFFFF;
+            if (entry == 0) {
+                return 0;
+            }
+            if (buffer.getLong(HEADER_BYTES + 8 * slot) == key) {
+                int move = board.getZobrist().unmap(board.getCanonicalSymmetry(), move(entry));
+                return pack(move, value(entry));
+            }
+        }
+    }
+
+    // best move for the position on board, or -1 when the book doesn't cover it
+    public int lookup(BackEnd board) {
+        int entry = probe(board);
+        return entry == 0 ? -1 : move(entry);
+    }
+
+    public static int move(int entry) {
+        return (entry & 0xFF) - 1;
+    }
+
+    public static int value(int entry) {
+        return (entry >>> 8) & 0x3;
+    }
+
+    private static int pack(int move, int value) {
+        return (move + 1) | (value << 8);
+    }
+
+    public int getMaxPly() {
+        return maxPly;
+    }
+
+    public boolean isDense() {
+        return dense;
+    }
+
+    // ----- Generation below ----- //
+
+    /**
+     * Writes a book for a size x size board.  Boards of up to 9 squares are solved completely
+     * (maxPly is ignored), bigger ones cover every position up to maxPly marks, each graded
+     * by a search of millisPerPosition.
+     */
+    public static void generate(Path file, int size, int winLength, int maxPly, long millisPerPosition)
+            throws IOException {
+        BackEnd board = new BackEnd(size, size, winLength);
+        ByteBuffer out;
+        if (size * size <= MAX_DENSE_CELLS) {
+            out = generateDense(board);
+            maxPly = size * size;
+        } else {
+            out = generateHashed(board, maxPly, millisPerPosition);
+        }
+        out.putInt(0, MAGIC);
+        out.put(4, (byte) VERSION);
+        out.put(5, (byte) size);
+        out.put(6, (byte) size);
+        out.put(7, (byte) winLength);
+        out.put(8, (byte) maxPly);
+        out.rewind();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static ByteBuffer generateDense(BackEnd board) {
+        PositionCodec codec = new PositionCodec(board.getNumRows(), board.getNumColumns());
+        int positions = (int) codec.getRankCount();
+        short[] entries = new short[positions];
+        int[] scores = new int[positions];
+        board.setPlayer('x');
+        solve(board, 0, codec, entries, scores);
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + 2 * positions);
+        out.put(9, DENSE);
+        out.putInt(12, positions);
+        for (int i = 0; i < positions; i++) {
+            out.putShort(HEADER_BYTES + 2 * i, entries[i]);
+        }
+        return out;
+    }
+
+    /**
+     * Negamax over every reachable position, memoized by base-3 index (see PositionCodec).
+     * Scores count down with distance so the fastest win and the slowest loss are preferred.
+     */
+    private static int solve(BackEnd board, int index, PositionCodec codec, short[] entries, int[] scores) {
+        if (entries[index] != 0) {
+            return scores[index];
+        }
+        int numColumns = board.getNumColumns();
+        int cells = board.getNumRows() * numColumns;
+        int digit = board.getCurrentPlayerMark() == 'x' ? 1 : 2;
+        int best = Integer.MIN_VALUE;
+        int bestMove = -1;
+
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / numColumns;
+            int col = cell % numColumns;
+            if (!board.placeMark(row, col)) {
+                continue;
+            }
+            int score;
+            if (board.checkForWin()) {
+                score = cells + 1;
+            } else if (board.isBoardFull()) {
+                score = 0;
+            } else {
+                board.changePlayer();
+                score = -solve(board, index + digit * (int) codec.getPower(cell), codec, entries, scores);
+                board.changePlayer();
+                score -= Integer.signum(score);
+            }
+            board.clearMark(row, col);
+            if (score > best) {
+                best = score;
+                bestMove = cell;
+            }
+        }
+
+        int value = best > 0 ? WIN : best < 0 ? LOSS : DRAW;
+        entries[index] = (short) pack(bestMove, value);
+        scores[index] = best;
+        return best;
+    }
+
+    private static ByteBuffer generateHashed(BackEnd board, int maxPly, long millisPerPosition) {
+        PositionMap positions = new PositionMap(1, MAX_HASHED_BYTES);
+        AlphaBetaSearch search = new AlphaBetaSearch(millisPerPosition);
+        board.setPlayer('x');
+        collect(board, maxPly, search, positions);
+
+        int slotCount = Integer.highestOneBit(Math.max(1, (int) positions.size() * 2 - 1)) << 1;
+        int mask = slotCount - 1;
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + 10 * slotCount);
+        out.put(9, HASHED);
+        out.putInt(12, slotCount);
+        positions.forEach((keys, offset, entry) -> {
+            long key = keys[offset];
+            int slot = mix(key) & mask;
+            while (out.getShort(HEADER_BYTES + 8 * slotCount + 2 * slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            out.putLong(HEADER_BYTES + 8 * slot, key);
+            out.putShort(HEADER_BYTES + 8 * slotCount + 2 * slot, (short) entry);
+        });
+        return out;
+    }
+
+    // grades every position up to maxPly marks, skipping symmetric duplicates
+    private static void collect(BackEnd board, int maxPly, AlphaBetaSearch search, PositionMap positions) {
+        long key = hashKey(board);
+        if (positions.get(key) != PositionMap.NO_VALUE) {
+            return;
+        }
+        int cells = board.getNumRows() * board.getNumColumns();
+        int move = search.selectMove(board);
+        int score = search.getLastScore();
+        int value = UNKNOWN;
+        if (score >= AlphaBetaSearch.WIN_SCORE - cells) {
+            value = WIN;
+        } else if (score <= -(AlphaBetaSearch.WIN_SCORE - cells)) {
+            value = LOSS;
+        } else if (search.getDepthReached() == cells - board.getMarkCount()) {
+            value = DRAW;
+        }
+        positions.put(key, pack(board.getZobrist().map(board.getCanonicalSymmetry(), move), value));
+
+        if (board.getMarkCount() >= maxPly) {
+            return;
+        }
+        int numColumns = board.getNumColumns();
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / numColumns;
+            int col = cell % numColumns;
+            if (!board.placeMark(row, col)) {
+                continue;
+            }
+            if (!board.checkForWin() && !board.isBoardFull()) {
+                board.changePlayer();
+                collect(board, maxPly, search, positions);
+                board.changePlayer();
+            }
+            board.clearMark(row, col);
+        }
+    }
+
+    private static long hashKey(BackEnd board) {
+        return board.getCanonicalHash() ^ (board.getCurrentPlayerMark() == 'o' ? Zobrist.SIDE_TO_MOVE : 0);
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key >>> 32);
+    }
+}
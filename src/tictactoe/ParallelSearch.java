@@ -0,0 +1,180 @@
+package tictactoe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Alpha-beta search on several threads at once (Lazy SMP).  Every thread runs its own
+ * AlphaBetaSearch on the same position and they share one lock-free transposition table,
+ * so results found by one thread cut off work in the others.  Helper threads start their
+ * iterative deepening a ply or two deeper than the main thread so they fill the table
+ * ahead of it.  The move comes from whichever thread finished the deepest iteration, and
+ * the helpers are stopped as soon as the main thread is done.  The helper threads live
+ * until close.
+ */
+class ParallelSearch implements Player {
+
+    // 2^22 slots, 64 MB, shared by all the threads
+    private static final int DEFAULT_TABLE_BITS = 22;
+
+    private final AlphaBetaSearch[] engines;
+    private final TranspositionTable table;
+    private final ExecutorService helpers;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    private final List<Future<?>> running = new ArrayList<>();
+    // move chosen by each thread, the main thread first
+    private final int[] moves;
+
+    private int numRows;
+    private int numColumns;
+    private int winLength;
+
+    private long elapsedNanos;
+    private final long[] nodes;
+    private int bestScore;
+
+    public ParallelSearch(long timeBudgetMillis, int threads) {
+        this(timeBudgetMillis, threads, new TranspositionTable(DEFAULT_TABLE_BITS));
+    }
+
+    public ParallelSearch(long timeBudgetMillis, int threads, TranspositionTable table) {
+        this.table = table;
+        this.engines = new AlphaBetaSearch[threads];
+        this.nodes = new long[threads];
+        this.moves = new int[threads];
+        for (int t = 0; t < threads; t++) {
+            engines[t] = new AlphaBetaSearch(timeBudgetMillis, table);
+            engines[t].setManagesTable(false);
+            engines[t].setStopSignal(stopSignal);
+            engines[t].setRecordsMetrics(false);
+            engines[t].setDepthOffset(t == 0 ? 0 : 1 + (t - 1) % 2);
+        }
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int selectMove(BackEnd board) {
+        if (board.getNumRows() != numRows || board.getNumColumns() != numColumns || board.getWinLength() != winLength) {
+            numRows = board.getNumRows();
+            numColumns = board.getNumColumns();
+            winLength = board.getWinLength();
+            table.clear();
+        }
+        table.newSearch();
+        stopSignal.set(false);
+
+        long start = System.nanoTime();
+        running.clear();
+        for (int t = 1; t < engines.length; t++) {
+            AlphaBetaSearch helper = engines[t];
+            int index = t;
+            running.add(helpers.submit(() -> moves[index] = helper.selectMove(board)));
+        }
+        try {
+            moves[0] = engines[0].selectMove(board);
+        } finally {
+            // also when the main thread fails, or helpers without a time budget never stop
+            stopSignal.set(true);
+            awaitHelpers();
+        }
+        elapsedNanos = System.nanoTime() - start;
+
+        int best = 0;
+        for (int t = 0; t < engines.length; t++) {
+            nodes[t] = engines[t].getNodesSearched();
+            if (engines[t].getDepthReached() > engines[best].getDepthReached()) {
+                best = t;
+            }
+        }
+        bestScore = engines[best].getLastScore();
+        Metrics.global().recordMove(elapsedNanos, getNodesSearched());
+        return moves[best];
+    }
+
+    private void awaitHelpers() {
+        try {
+            for (Future<?> helper : running) {
+                helper.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while searching", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // stops the helper threads, the search can't be used after this
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdown();
+        }
+    }
+
+    // stops every thread at this depth, for repeatable benchmarks
+    public void setMaxDepth(int maxDepth) {
+        for (AlphaBetaSearch engine : engines) {
+            engine.setMaxDepth(maxDepth);
+        }
+    }
+
+    public int getThreads() {
+        return engines.length;
+    }
+
+    // nodes searched by all threads for the last move
+    public long getNodesSearched() {
+        long total = 0;
+        for (long n : nodes) {
+            total += n;
+        }
+        return total;
+    }
+
+    // deepest iteration any thread finished for the last move
+    public int getDepthReached() {
+        int depth = 0;
+        for (AlphaBetaSearch engine : engines) {
+            depth = Math.max(depth, engine.getDepthReached());
+        }
+        return depth;
+    }
+
+    @Override
+    public int getLastScore() {
+        return bestScore;
+    }
+
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getNodesSearched() * 1e9 / elapsedNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    // nodes per second of each thread for the last move, the main thread first
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%.0f nodes/sec on %d threads to depth %d:",
+                getNodesPerSecond(), engines.length, getDepthReached()));
+        for (int t = 0; t < engines.length; t++) {
+            report.append(String.format(" [%d] %.0f/s depth %d", t,
+                    elapsedNanos == 0 ? 0 : nodes[t] * 1e9 / elapsedNanos, engines[t].getDepthReached()));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package tictactoe;
+
+/**
+ * Strategy for choosing a move.  Implementations may search on a copy of the board but
+ * must leave the board they are given unchanged.  Whoever makes a player closes it once
+ * done, which stops any threads it keeps.
+ */
+interface Player extends AutoCloseable {
+
+    /**
+     * @return the square (row * numColumns + col) to mark for the current player,
+     * or -1 if the game is already over
+     */
+    int selectMove(BackEnd board);
+
+    /**
+     * Score of the last move from the mover's point of view, see AlphaBetaSearch.WIN_SCORE.
+     * Players that don't score their moves report 0.
+     */
+    default int getLastScore() {
+        return 0;
+    }
+
+    // most players hold nothing to free
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,129 @@
+package tictactoe;
+
+/**
+ * Turns positions into primitive longs and back, for storing or comparing many of them
+ * without a char[][] each.  Boards of up to MAX_RANKED_CELLS squares get a dense index:
+ * the squares as base-3 digits (- is 0, x is 1, o is 2), first square lowest, so every
+ * position is a distinct long below 3^cells and the index can address an array directly.
+ * Bigger boards are packed 2 bits per square, 32 squares per long.  Either way the empty
+ * board encodes as all zero words.
+ *
+ * The side to move isn't encoded, in a game it follows from the mark counts.
+ */
+class PositionCodec {
+
+    // 3^39 is the largest power of 3 below 2^63
+    public static final int MAX_RANKED_CELLS = 39;
+
+    private static final int CELLS_PER_WORD = 32;
+
+    private final int numRows;
+    private final int numColumns;
+    private final int cells;
+    private final long[] powers;
+
+    public PositionCodec(int numRows, int numColumns) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.cells = numRows * numColumns;
+        if (cells <= MAX_RANKED_CELLS) {
+            powers = new long[cells + 1];
+            powers[0] = 1;
+            for (int i = 1; i <= cells; i++) {
+                powers[i] = powers[i - 1] * 3;
+            }
+        } else {
+            powers = null;
+        }
+    }
+
+    // true when positions get a dense base-3 index
+    public boolean isRanked() {
+        return powers != null;
+    }
+
+    // longs per encoded position
+    public int getWords() {
+        return isRanked() ? 1 : (cells + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+    }
+
+    // number of distinct indexes, 3^cells, for sizing arrays indexed by rank
+    public long getRankCount() {
+        return powers[cells];
+    }
+
+    // what a mark on the cell adds to the index, for updating it move by move
+    public long getPower(int cell) {
+        return powers[cell];
+    }
+
+    public static int digit(char mark) {
+        return mark == 'x' ? 1 : mark == 'o' ? 2 : 0;
+    }
+
+    private static char mark(int digit) {
+        return digit == 1 ? 'x' : digit == 2 ? 'o' : '-';
+    }
+
+    // dense index of the position, only for ranked boards
+    public long rank(char[][] squares) {
+        long index = 0;
+        for (int row = numRows - 1; row >= 0; row--) {
+            char[] line = squares[row];
+            for (int col = numColumns - 1; col >= 0; col--) {
+                index = index * 3 + digit(line[col]);
+            }
+        }
+        return index;
+    }
+
+    // writes getWords longs for the position at out[offset]
+    public void encode(char[][] squares, long[] out, int offset) {
+        if (isRanked()) {
+            out[offset] = rank(squares);
+            return;
+        }
+        for (int w = 0; w < getWords(); w++) {
+            out[offset + w] = 0;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            long digit = digit(squares[cell / numColumns][cell % numColumns]);
+            out[offset + cell / CELLS_PER_WORD] |= digit << (2 * (cell % CELLS_PER_WORD));
+        }
+    }
+
+    // mark on the cell of an encoded position
+    public char markAt(long[] in, int offset, int cell) {
+        if (isRanked()) {
+            return mark((int) (in[offset] / powers[cell] % 3));
+        }
+        return mark((int) (in[offset + cell / CELLS_PER_WORD] >>> (2 * (cell % CELLS_PER_WORD))) & 3);
+    }
+
+    /**
+     * Sets up board with an encoded position, with the player to move worked out from the
+     * mark counts.  The board must be this codec's size.
+     */
+    public void decode(long[] in, int offset, BackEnd board) {
+        board.initializeBoard(numRows, numColumns);
+        int xCount = 0;
+        int oCount = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            char mark = markAt(in, offset, cell);
+            if (mark != '-') {
+                board.setPlayer(mark);
+                board.placeMark(cell / numColumns, cell % numColumns);
+                if (mark == 'x') {
+                    xCount++;
+                } else {
+                    oCount++;
+                }
+            }
+        }
+        board.setPlayer(xCount > oCount ? 'o' : 'x');
+    }
+
+    public void unrank(long index, BackEnd board) {
+        decode(new long[] {index}, 0, board);
+    }
+}
@@ -0,0 +1,76 @@
+package tictactoe;
+
+/**
+ * Map from encoded positions to longs, see PositionTable, with the value in the slot after
+ * its key.  Not thread-safe.
+ */
+class PositionMap extends PositionTable {
+
+    // returned by get and put when the position isn't in the map
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    public interface EntryVisitor {
+        // key is words longs from offset, valid only during the call
+        void visit(long[] key, int offset, long value);
+    }
+
+    private long zeroKeyValue = NO_VALUE;
+
+    public PositionMap(int words, long maxBytes) {
+        super(words, maxBytes, 1);
+    }
+
+    public long get(long[] key, int offset) {
+        if (isZero(key, offset)) {
+            return zeroKeyValue;
+        }
+        long slot = find(key, offset);
+        return slot < 0 ? NO_VALUE : chunk(slot)[base(slot) + getWords()];
+    }
+
+    // stores value for key, returns the value it replaced or NO_VALUE
+    public long put(long[] key, int offset, long value) {
+        if (isZero(key, offset)) {
+            addZeroKey();
+            long previous = zeroKeyValue;
+            zeroKeyValue = value;
+            return previous;
+        }
+        long before = size();
+        long slot = insert(key, offset);
+        int index = base(slot) + getWords();
+        long previous = size() == before ? chunk(slot)[index] : NO_VALUE;
+        chunk(slot)[index] = value;
+        return previous;
+    }
+
+    public long get(long key) {
+        single[0] = key;
+        return get(single, 0);
+    }
+
+    public long put(long key, long value) {
+        single[0] = key;
+        return put(single, 0, value);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        zeroKeyValue = NO_VALUE;
+    }
+
+    // visits every entry in no particular order
+    public void forEach(EntryVisitor visitor) {
+        if (hasZeroKey()) {
+            visitor.visit(new long[getWords()], 0, zeroKeyValue);
+        }
+        for (long slot = 0; slot < getSlots(); slot++) {
+            if (isOccupied(slot)) {
+                long[] chunk = chunk(slot);
+                int base = base(slot);
+                visitor.visit(chunk, base, chunk[base + getWords()]);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package tictactoe;
+
+/**
+ * Set of encoded positions, see PositionTable for the layout and memory limit.  Not
+ * thread-safe.
+ */
+class PositionSet extends PositionTable {
+
+    public PositionSet(int words, long maxBytes) {
+        super(words, maxBytes, 0);
+    }
+
+    public boolean add(long[] key, int offset) {
+        if (isZero(key, offset)) {
+            return addZeroKey();
+        }
+        long before = size();
+        insert(key, offset);
+        return size() != before;
+    }
+
+    public boolean add(long key) {
+        single[0] = key;
+        return add(single, 0);
+    }
+}
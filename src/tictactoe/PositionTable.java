@@ -0,0 +1,203 @@
+package tictactoe;
+
+/**
+ * Encoded positions (see PositionCodec) in primitive long arrays, with no object per
+ * position, shared by PositionSet and PositionMap.  Keys are a fixed number of words and
+ * live in one open addressed table with linear probing, with any values in the longs after
+ * the key.  The table is split into chunk arrays so it can pass the 2^31 element limit of
+ * a single array and hold hundreds of millions of positions.
+ *
+ * The table doubles as it fills but never past maxBytes; adding to a full table throws.
+ * While doubling the old and new table are both live, so the peak is 1.5 times the final
+ * size.  Not thread-safe.
+ */
+abstract class PositionTable {
+
+    // 2^20 slots per chunk array
+    private static final int CHUNK_SLOT_BITS = 20;
+    private static final int INITIAL_SLOT_BITS = 10;
+
+    private final int words;
+    private final int stride;
+    private final long maxSlots;
+
+    private long[][] chunks;
+    private long slots;
+    private long size;
+
+    // the all zero key (the empty board) looks like an empty slot, so it's kept aside
+    private boolean hasZeroKey;
+
+    // for the one word methods
+    final long[] single = new long[1];
+
+    // valueLongs extra longs are kept after the key in every slot
+    PositionTable(int words, long maxBytes, int valueLongs) {
+        this.words = words;
+        this.stride = words + valueLongs;
+        this.maxSlots = Long.highestOneBit(Math.max(1, maxBytes / (8L * stride)));
+        allocate(Math.min(maxSlots, 1L << INITIAL_SLOT_BITS));
+    }
+
+    public boolean contains(long[] key, int offset) {
+        if (isZero(key, offset)) {
+            return hasZeroKey;
+        }
+        return find(key, offset) >= 0;
+    }
+
+    // one word keys, such as PositionCodec ranks
+    public boolean contains(long key) {
+        single[0] = key;
+        return contains(single, 0);
+    }
+
+    public long size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public long getMemoryBytes() {
+        return slots * stride * 8;
+    }
+
+    // most keys the set can hold within its memory budget
+    public long getMaxSize() {
+        return maxSlots / 4 * 3;
+    }
+
+    public void clear() {
+        allocate(Math.min(maxSlots, 1L << INITIAL_SLOT_BITS));
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    /**
+     * Slot holding key, or -(slot + 1) for the empty slot where it would go.  Never called
+     * with the zero key.
+     */
+    long find(long[] key, int offset) {
+        long mask = slots - 1;
+        for (long slot = hash(key, offset) & mask; ; slot = (slot + 1) & mask) {
+            long[] chunk = chunk(slot);
+            int base = base(slot);
+            if (isZero(chunk, base)) {
+                return -(slot + 1);
+            }
+            if (matches(chunk, base, key, offset)) {
+                return slot;
+            }
+        }
+    }
+
+    // slot holding key, added if it wasn't there
+    long insert(long[] key, int offset) {
+        long slot = find(key, offset);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (size + 1 > slots / 4 * 3) {
+            grow();
+            slot = find(key, offset);
+        }
+        slot = -slot - 1;
+        System.arraycopy(key, offset, chunk(slot), base(slot), words);
+        size++;
+        return slot;
+    }
+
+    long[] chunk(long slot) {
+        return chunks[(int) (slot >>> CHUNK_SLOT_BITS)];
+    }
+
+    // index of the slot's key within its chunk, values follow the key
+    int base(long slot) {
+        return (int) (slot & ((1 << CHUNK_SLOT_BITS) - 1)) * stride;
+    }
+
+    long getSlots() {
+        return slots;
+    }
+
+    boolean isOccupied(long slot) {
+        return !isZero(chunk(slot), base(slot));
+    }
+
+    boolean hasZeroKey() {
+        return hasZeroKey;
+    }
+
+    // records the zero key, true if it wasn't there
+    boolean addZeroKey() {
+        boolean added = !hasZeroKey;
+        hasZeroKey = true;
+        return added;
+    }
+
+    private void grow() {
+        if (slots * 2 > maxSlots) {
+            throw new IllegalStateException("position table is full at " + size() + " positions, "
+                    + getMemoryBytes() / (1024 * 1024) + " MB");
+        }
+        long[][] oldChunks = chunks;
+        long oldSlots = slots;
+        allocate(slots * 2);
+        long mask = slots - 1;
+        for (long slot = 0; slot < oldSlots; slot++) {
+            long[] chunk = oldChunks[(int) (slot >>> CHUNK_SLOT_BITS)];
+            int base = (int) (slot & ((1 << CHUNK_SLOT_BITS) - 1)) * stride;
+            if (isZero(chunk, base)) {
+                continue;
+            }
+            long target = hash(chunk, base) & mask;
+            while (isOccupied(target)) {
+                target = (target + 1) & mask;
+            }
+            System.arraycopy(chunk, base, chunk(target), base(target), stride);
+        }
+    }
+
+    private void allocate(long slotCount) {
+        slots = slotCount;
+        long chunkSlots = Math.min(slotCount, 1L << CHUNK_SLOT_BITS);
+        chunks = new long[(int) (slotCount / chunkSlots)][];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new long[(int) chunkSlots * stride];
+        }
+    }
+
+    boolean isZero(long[] key, int offset) {
+        for (int w = 0; w < words; w++) {
+            if (key[offset + w] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(long[] chunk, int base, long[] key, int offset) {
+        for (int w = 0; w < words; w++) {
+            if (chunk[base + w] != key[offset + w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // murmur3's finalizer over the words, ranks are sequential and need spreading
+    private long hash(long[] key, int offset) {
+        long h = 0;
+        for (int w = 0; w < words; w++) {
+            h = (h ^ key[offset + w]) * 0x9E3779B97F4A7C15L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,434 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+/**
+ * Proves the game-theoretic value of a position with depth-first proof-number search
+ * (df-pn).  A proof asks whether one player, the attacker, can force a win.  Positions
+ * where the attacker moves are OR nodes and the rest AND nodes; a draw counts as a
+ * disproof.  solve asks this for X and then for O, and a position neither can win is a
+ * draw.
+ *
+ * Each node's proof number (pn) is how many more leaves must be proved to prove it and its
+ * disproof number (dn) the same for a disproof.  The search always descends into the most
+ * proving child and only comes back up once that child's numbers pass thresholds set from
+ * its siblings, so it works depth first in memory linear in the depth.  All the numbers it
+ * has found live in a ProofTable keyed by canonical hash, which also merges rotations,
+ * reflections and transpositions.
+ *
+ * Because everything the search knows is in the table, a long run can be checkpointed by
+ * writing the table out and resumed later from that file, see setCheckpoint and resume.
+ */
+class ProofNumberSearch {
+
+    // pn or dn of a solved node, sums stop just below it
+    public static final int INFINITY = 1 << 30;
+
+    // results of prove
+    public static final int PROVEN = 0;
+    public static final int DISPROVEN = 1;
+    public static final int UNKNOWN = 2;
+
+    // returned by solve when the time ran out, otherwise a Scoreboard result
+    public static final int UNSOLVED = -1;
+
+    private static final Logger LOG = Logger.getLogger(ProofNumberSearch.class.getName());
+
+    private static final int MAGIC = 0x5454504E; // "TTPN"
+    private static final int VERSION = 2;
+
+    // keeps proofs for X and for O apart in one table
+    private static final long ATTACKER_X = 0x2545F4914F6CDD1DL;
+    private static final long ATTACKER_O = 0x6A09E667F3BCC909L;
+    // and proofs for different win lengths, which the board's hash doesn't cover
+    private static final long WIN_LENGTH_KEY = 0x3C6EF372FE94F82BL;
+
+    // the clock, progress and checkpoints are looked at once per this many nodes
+    private static final int CHECK_INTERVAL = 1 << 14;
+
+    private final ProofTable table;
+
+    private BackEnd board;
+    private char attacker;
+    private long attackerKey;
+
+    // children of the node at each depth, with the numbers last seen for them
+    private int[][] moves;
+    private long[][] childKeys;
+    private int[][] childPn;
+    private int[][] childDn;
+
+    // numbers of the node mid just left
+    private int resultPn;
+    private int resultDn;
+    private int rootPn = 1;
+    private int rootDn = 1;
+
+    private long nodes;
+    private long elapsedNanos;
+    private long startNanos;
+    private long startNodes;
+    private long runNanos;
+    private boolean running;
+
+    private long timeBudgetMillis = Long.MAX_VALUE;
+    private long deadline;
+    private boolean stopped;
+
+    private long progressMillis = 10_000;
+    private long nextProgress;
+
+    private Path checkpoint;
+    private long checkpointMillis;
+    private long nextCheckpoint;
+    private int numRows;
+    private int winLength;
+
+    public ProofNumberSearch(ProofTable table) {
+        this.table = table;
+    }
+
+    // wall time each prove or solve call may take, unlimited by default
+    public void setTimeBudget(long millis) {
+        this.timeBudgetMillis = millis;
+    }
+
+    // how often progress is logged at INFO
+    public void setProgressInterval(long millis) {
+        this.progressMillis = millis;
+    }
+
+    // writes the table to file every interval and when a run stops, see resume
+    public void setCheckpoint(Path file, long intervalMillis) {
+        this.checkpoint = file;
+        this.checkpointMillis = intervalMillis;
+    }
+
+    /**
+     * The game-theoretic value of the position with perfect play from both sides.
+     * @return Scoreboard.X_WINS, O_WINS or TIE, or UNSOLVED if the time budget ran out
+     */
+    public int solve(BackEnd position) {
+        long start = System.currentTimeMillis();
+        int x = prove(position, 'x');
+        if (x == PROVEN) {
+            return Scoreboard.X_WINS;
+        }
+        long budget = timeBudgetMillis;
+        timeBudgetMillis = budget == Long.MAX_VALUE ? budget : budget - (System.currentTimeMillis() - start);
+        try {
+            int o = timeBudgetMillis <= 0 ? UNKNOWN : prove(position, 'o');
+            if (o == PROVEN) {
+                return Scoreboard.O_WINS;
+            }
+            return x == DISPROVEN && o == DISPROVEN ? Scoreboard.TIE : UNSOLVED;
+        } finally {
+            timeBudgetMillis = budget;
+        }
+    }
+
+    /**
+     * Whether attacker can force a win from the position.  The position is copied, the
+     * caller's board is left alone.
+     * @return PROVEN, DISPROVEN, or UNKNOWN if the time budget ran out
+     */
+    public int prove(BackEnd position, char attacker) {
+        if (position.checkForWin() || position.isBoardFull()) {
+            throw new IllegalArgumentException("game is already over");
+        }
+        this.board = position.copy();
+        this.attacker = attacker;
+        this.attackerKey = (attacker == 'x' ? ATTACKER_X : ATTACKER_O) ^ position.getWinLength() * WIN_LENGTH_KEY;
+        this.numRows = position.getNumRows();
+        this.winLength = position.getWinLength();
+        int cells = position.getNumRows() * position.getNumColumns();
+        if (moves == null || moves[0].length != cells) {
+            moves = new int[cells + 1][cells];
+            childKeys = new long[cells + 1][cells];
+            childPn = new int[cells + 1][cells];
+            childDn = new int[cells + 1][cells];
+        }
+
+        startNanos = System.nanoTime();
+        startNodes = nodes;
+        long now = System.currentTimeMillis();
+        deadline = timeBudgetMillis == Long.MAX_VALUE ? Long.MAX_VALUE : now + timeBudgetMillis;
+        nextProgress = now + progressMillis;
+        nextCheckpoint = now + checkpointMillis;
+        stopped = false;
+        running = true;
+
+        long entry = table.get(key());
+        rootPn = entry == ProofTable.NO_ENTRY ? 1 : ProofTable.proofNumber(entry);
+        rootDn = entry == ProofTable.NO_ENTRY ? 1 : ProofTable.disproofNumber(entry);
+        while (rootPn != 0 && rootDn != 0 && !stopped) {
+            mid(0, INFINITY, INFINITY);
+        }
+        runNanos = System.nanoTime() - startNanos;
+        elapsedNanos += runNanos;
+        running = false;
+        if (checkpoint != null) {
+            writeCheckpoint();
+        }
+        return rootPn == 0 ? PROVEN : rootDn == 0 ? DISPROVEN : UNKNOWN;
+    }
+
+    // searches the node on the board until its pn reaches thpn or its dn reaches thdn
+    private void mid(int depth, int thpn, int thdn) {
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0) {
+            tick();
+        }
+        boolean or = board.getCurrentPlayerMark() == attacker;
+        long key = key();
+        long work = table.get(key) == ProofTable.NO_ENTRY ? 0 : table.getLastWork();
+        long nodesBefore = nodes;
+        int count = expand(depth);
+        int[] pns = childPn[depth];
+        int[] dns = childDn[depth];
+
+        while (true) {
+            // one proved child proves an OR node and it takes all of them to disprove it, an AND node the reverse
+            int pn = or ? INFINITY : 0;
+            int dn = or ? 0 : INFINITY;
+            int best = -1;
+            int second = INFINITY;
+            for (int i = 0; i < count; i++) {
+                int proving = or ? pns[i] : dns[i];
+                if (or) {
+                    pn = Math.min(pn, pns[i]);
+                    dn = add(dn, dns[i]);
+                } else {
+                    pn = add(pn, pns[i]);
+                    dn = Math.min(dn, dns[i]);
+                }
+                if (best == -1 || proving < (or ? pns[best] : dns[best])) {
+                    if (best != -1) {
+                        second = or ? pns[best] : dns[best];
+                    }
+                    best = i;
+                } else if (proving < second) {
+                    second = proving;
+                }
+            }
+            table.put(key, pn, dn, work + nodes - nodesBefore);
+            resultPn = pn;
+            resultDn = dn;
+            if (depth == 0) {
+                rootPn = pn;
+                rootDn = dn;
+            }
+            if (pn >= thpn || dn >= thdn || stopped) {
+                return;
+            }
+
+            int childThpn;
+            int childThdn;
+            if (or) {
+                childThpn = Math.min(thpn, add(second, 1));
+                childThdn = thdn - dn + dns[best];
+            } else {
+                childThpn = thpn - pn + pns[best];
+                childThdn = Math.min(thdn, add(second, 1));
+            }
+            int move = moves[depth][best];
+            int row = move / board.getNumColumns();
+            int col = move % board.getNumColumns();
+            board.placeMark(row, col);
+            board.changePlayer();
+            mid(depth + 1, childThpn, childThdn);
+            board.changePlayer();
+            board.clearMark(row, col);
+            pns[best] = resultPn;
+            dns[best] = resultDn;
+        }
+    }
+
+    /**
+     * Lists the children of the node at depth with their numbers from the table.  Children
+     * that end the game are solved on the spot, and children that are rotations or
+     * reflections of an earlier one are left out.
+     * @return the number of children
+     */
+    private int expand(int depth) {
+        int[] list = moves[depth];
+        int[] pns = childPn[depth];
+        int[] dns = childDn[depth];
+        char mover = board.getCurrentPlayerMark();
+        int numColumns = board.getNumColumns();
+        long[] keys = childKeys[depth];
+        int count = 0;
+
+        // children are written over the legal moves, never ahead of the one being read
+        int legal = board.getLegalMoves(list);
+        for (int i = 0; i < legal; i++) {
+            int cell = list[i];
+            int row = cell / numColumns;
+            int col = cell % numColumns;
+            board.placeMark(row, col);
+            int pn;
+            int dn;
+            long key = 0;
+            if (board.checkForWin()) {
+                pn = mover == attacker ? 0 : INFINITY;
+                dn = mover == attacker ? INFINITY : 0;
+            } else if (board.isBoardFull()) {
+                pn = INFINITY;
+                dn = 0;
+            } else {
+                board.changePlayer();
+                key = key();
+                board.changePlayer();
+                if (isDuplicate(keys, count, key)) {
+                    board.clearMark(row, col);
+                    continue;
+                }
+                long entry = table.get(key);
+                pn = entry == ProofTable.NO_ENTRY ? 1 : ProofTable.proofNumber(entry);
+                dn = entry == ProofTable.NO_ENTRY ? 1 : ProofTable.disproofNumber(entry);
+            }
+            board.clearMark(row, col);
+            list[count] = cell;
+            keys[count] = key;
+            pns[count] = pn;
+            dns[count] = dn;
+            count++;
+        }
+        return count;
+    }
+
+    // true if an earlier child reaches the same canonical position, solved children have key 0
+    private static boolean isDuplicate(long[] keys, int count, long key) {
+        for (int i = 0; i < count; i++) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long key() {
+        return board.getCanonicalHash() ^ (board.getCurrentPlayerMark() == 'o' ? Zobrist.SIDE_TO_MOVE : 0) ^ attackerKey;
+    }
+
+    // sum that saturates below INFINITY unless one side is INFINITY
+    private static int add(int a, int b) {
+        if (a >= INFINITY || b >= INFINITY) {
+            return INFINITY;
+        }
+        return Math.min(INFINITY - 1, a + b);
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        if (now >= deadline) {
+            stopped = true;
+        }
+        if (now >= nextProgress) {
+            nextProgress = now + progressMillis;
+            LOG.info(report());
+        }
+        if (checkpoint != null && now >= nextCheckpoint) {
+            nextCheckpoint = now + checkpointMillis;
+            writeCheckpoint();
+        }
+    }
+
+    private void writeCheckpoint() {
+        try {
+            saveCheckpoint(checkpoint);
+        } catch (IOException e) {
+            LOG.warning("Could not write the checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the board shape, counters and table to file, through a temporary file so a
+     * crash while writing leaves the previous checkpoint intact.
+     */
+    public void saveCheckpoint(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(32);
+            header.putInt(MAGIC).putInt(VERSION).putInt(numRows).putInt(winLength)
+                    .putLong(nodes).putLong(getElapsedNanos());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            table.write(channel);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a checkpoint written for the same board and table size, so the next prove or
+     * solve carries on where the run that wrote it stopped.
+     */
+    public void resume(Path file, int size, int winLength) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(32);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("truncated checkpoint: " + file);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("not a solver checkpoint: " + file);
+            }
+            if (header.getInt() != size || header.getInt() != winLength) {
+                throw new IOException("checkpoint is for a different board: " + file);
+            }
+            nodes = header.getLong();
+            elapsedNanos = header.getLong();
+            table.read(channel);
+        }
+        numRows = size;
+        this.winLength = winLength;
+    }
+
+    // nodes searched by every run, including the ones before a resume
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return running ? elapsedNanos + System.nanoTime() - startNanos : elapsedNanos;
+    }
+
+    // nodes per second of the current or last prove
+    public double getNodesPerSecond() {
+        long nanos = running ? System.nanoTime() - startNanos : runNanos;
+        return nanos == 0 ? 0 : (nodes - startNodes) * 1e9 / nanos;
+    }
+
+    public int getRootProofNumber() {
+        return rootPn;
+    }
+
+    public int getRootDisproofNumber() {
+        return rootDn;
+    }
+
+    public ProofTable getTable() {
+        return table;
+    }
+
+    public String report() {
+        return String.format("%s to win: %d nodes, %.0f nodes/sec, root pn %s dn %s, %d positions stored, %d spilled",
+                Character.toUpperCase(attacker), nodes, getNodesPerSecond(), number(rootPn), number(rootDn),
+                table.getStored(), table.getSpilled());
+    }
+
+    private static String number(int n) {
+        return n >= INFINITY ? "inf" : Integer.toString(n);
+    }
+}
@@ -0,0 +1,378 @@
+package tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Proof and disproof numbers for ProofNumberSearch, in a fixed amount of memory.  The
+ * first tier is long arrays on the heap, probed like TranspositionTable.  Every entry
+ * carries the number of nodes searched below it, and when a probe window is full the
+ * entry with the least work, the cheapest to find again, makes way.  Keeping the big
+ * subtrees is what stops df-pn from searching the same small ones over and over once the
+ * table is full.  With a spill file the entry that makes way moves to a second, much
+ * bigger tier mapped from that file, so the heap limit bounds only the hot part of the
+ * table.
+ *
+ * An entry packs pn into the high int and dn into the low int.  pn and dn are never both
+ * 0, so an empty slot is 0 in both tiers and a new spill file needs no initializing past
+ * its header, which records the board and tier size the entries were written for.
+ */
+class ProofTable implements Closeable {
+
+    // returned by get when the position isn't stored
+    public static final long NO_ENTRY = 0;
+
+    private static final int PROBE_WINDOW = 4;
+
+    // 2^26 slots, 1.5 GB, per mapping since one mapping can't pass 2 GB
+    private static final int CHUNK_BITS = 26;
+
+    // key, entry and work, in the spill file
+    private static final int SLOT_LONGS = 3;
+
+    private static final int SPILL_MAGIC = 0x54545053; // "TTPS"
+    private static final int SPILL_VERSION = 1;
+
+    // magic, version, rows, columns, win length and spill bits, padded to a page so the
+    // slots after it map page aligned
+    private static final int SPILL_HEADER_BYTES = 4096;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final long[] work;
+    private final int indexMask;
+
+    private final FileChannel spillChannel;
+    private final MappedByteBuffer[] spillMaps;
+    private final LongBuffer[] spillChunks;
+    private final long spillMask;
+
+    private long stored;
+    private long spilled;
+    private long spillHits;
+    private long lastWork;
+
+    // heap table only, 2^heapBits slots of 24 bytes
+    public ProofTable(int heapBits) throws IOException {
+        this(heapBits, null, 0, 0, 0, 0, false);
+    }
+
+    /**
+     * Heap table of 2^heapBits slots backed by 2^spillBits slots in spillFile, for proofs
+     * on a rows x columns board with winLength in a row.  A run resumed from a checkpoint
+     * (resume true) keeps what an earlier run spilled, but only from a file written for the
+     * same board and spill size.  Any other run empties the file first.
+     * @throws IOException if resuming from a spill file written for something else
+     */
+    public ProofTable(int heapBits, Path spillFile, int spillBits, int rows, int columns, int winLength,
+            boolean resume) throws IOException {
+        keys = new long[1 << heapBits];
+        entries = new long[1 << heapBits];
+        work = new long[1 << heapBits];
+        indexMask = (1 << heapBits) - 1;
+        if (spillFile == null) {
+            spillChannel = null;
+            spillMaps = new MappedByteBuffer[0];
+            spillChunks = new LongBuffer[0];
+            spillMask = 0;
+            return;
+        }
+        spillChannel = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (!resume) {
+                spillChannel.truncate(0);
+            }
+            checkSpillHeader(spillChannel, spillFile, rows, columns, winLength, spillBits);
+            spillMaps = mapSpill(spillChannel, spillBits);
+        } catch (IOException e) {
+            spillChannel.close();
+            throw e;
+        }
+        spillChunks = new LongBuffer[spillMaps.length];
+        for (int c = 0; c < spillMaps.length; c++) {
+            spillChunks[c] = spillMaps[c].asLongBuffer();
+        }
+        spillMask = (1L << spillBits) - 1;
+    }
+
+    // writes the header to an empty spill file, otherwise checks the one there
+    private static void checkSpillHeader(FileChannel channel, Path file, int rows, int columns, int winLength,
+            int spillBits) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(24);
+        if (channel.size() == 0) {
+            header.putInt(SPILL_MAGIC).putInt(SPILL_VERSION).putInt(rows).putInt(columns).putInt(winLength)
+                    .putInt(spillBits);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            return;
+        }
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("not a solver spill file: " + file);
+            }
+        }
+        header.flip();
+        if (header.getInt() != SPILL_MAGIC || header.getInt() != SPILL_VERSION) {
+            throw new IOException("not a solver spill file: " + file);
+        }
+        if (header.getInt() != rows || header.getInt() != columns || header.getInt() != winLength) {
+            throw new IOException("spill file is for a different board: " + file);
+        }
+        if (header.getInt() != spillBits) {
+            throw new IOException("spill file was written for a different size: " + file);
+        }
+    }
+
+    private static MappedByteBuffer[] mapSpill(FileChannel channel, int spillBits) throws IOException {
+        long slots = 1L << spillBits;
+        long chunkSlots = Math.min(slots, 1L << CHUNK_BITS);
+        long chunkBytes = chunkSlots * SLOT_LONGS * 8;
+        MappedByteBuffer[] maps = new MappedByteBuffer[(int) (slots / chunkSlots)];
+        for (int c = 0; c < maps.length; c++) {
+            maps[c] = channel.map(FileChannel.MapMode.READ_WRITE, SPILL_HEADER_BYTES + c * chunkBytes, chunkBytes);
+        }
+        return maps;
+    }
+
+    // size bits of the largest heap or spill tier that fits in maxBytes
+    public static int slotBitsFor(long maxBytes) {
+        return Math.max(10, Math.min(30, 63 - Long.numberOfLeadingZeros(maxBytes / (SLOT_LONGS * 8))));
+    }
+
+    public static int proofNumber(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    public static int disproofNumber(long entry) {
+        return (int) entry;
+    }
+
+    // nodes searched below the position found by the last successful get
+    public long getLastWork() {
+        return lastWork;
+    }
+
+    public long get(long key) {
+        int index = index(key);
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (index + i) & indexMask;
+            if (entries[slot] == NO_ENTRY) {
+                break;
+            }
+            if (keys[slot] == key) {
+                lastWork = work[slot];
+                return entries[slot];
+            }
+        }
+        if (spillChunks.length == 0) {
+            return NO_ENTRY;
+        }
+        long spillIndex = spillIndex(key);
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            long slot = (spillIndex + i) & spillMask;
+            long entry = spillEntry(slot);
+            if (entry == NO_ENTRY) {
+                break;
+            }
+            if (spillKey(slot) == key) {
+                spillHits++;
+                lastWork = spillWork(slot);
+                return entry;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores the numbers of a position.
+     * @param nodes nodes searched below the position so far, decides what is kept
+     */
+    public void put(long key, int pn, int dn, long nodes) {
+        long entry = (long) pn << 32 | (dn & 0xFFFFFFFFL);
+        int index = index(key);
+        int victim = index;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (index + i) & indexMask;
+            if (entries[slot] == NO_ENTRY || keys[slot] == key) {
+                if (entries[slot] == NO_ENTRY) {
+                    stored++;
+                }
+                keys[slot] = key;
+                entries[slot] = entry;
+                work[slot] = nodes;
+                return;
+            }
+            if (work[slot] < work[victim]) {
+                victim = slot;
+            }
+        }
+        if (spillChunks.length > 0) {
+            spill(keys[victim], entries[victim], work[victim]);
+        }
+        keys[victim] = key;
+        entries[victim] = entry;
+        work[victim] = nodes;
+    }
+
+    private void spill(long key, long entry, long nodes) {
+        spilled++;
+        long index = spillIndex(key);
+        long victim = index;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            long slot = (index + i) & spillMask;
+            if (spillEntry(slot) == NO_ENTRY || spillKey(slot) == key) {
+                writeSpill(slot, key, entry, nodes);
+                return;
+            }
+            if (spillWork(slot) < spillWork(victim)) {
+                victim = slot;
+            }
+        }
+        writeSpill(victim, key, entry, nodes);
+    }
+
+    private long spillKey(long slot) {
+        return spillChunks[(int) (slot >>> CHUNK_BITS)].get(offset(slot));
+    }
+
+    private long spillEntry(long slot) {
+        return spillChunks[(int) (slot >>> CHUNK_BITS)].get(offset(slot) + 1);
+    }
+
+    private long spillWork(long slot) {
+        return spillChunks[(int) (slot >>> CHUNK_BITS)].get(offset(slot) + 2);
+    }
+
+    private void writeSpill(long slot, long key, long entry, long nodes) {
+        LongBuffer chunk = spillChunks[(int) (slot >>> CHUNK_BITS)];
+        int offset = offset(slot);
+        chunk.put(offset, key);
+        chunk.put(offset + 1, entry);
+        chunk.put(offset + 2, nodes);
+    }
+
+    // index of the slot's first long within its chunk
+    private static int offset(long slot) {
+        return (int) (slot & ((1 << CHUNK_BITS) - 1)) * SLOT_LONGS;
+    }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & indexMask;
+    }
+
+    // different bits from index, so entries that collided on the heap spread out in the file
+    private long spillIndex(long key) {
+        return (key * 0x9E3779B97F4A7C15L >>> 17) & spillMask;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, NO_ENTRY);
+        Arrays.fill(work, 0);
+        for (int c = 0; c < spillChunks.length; c++) {
+            LongBuffer chunk = spillChunks[c];
+            for (int i = 0; i < chunk.capacity(); i++) {
+                chunk.put(i, 0);
+            }
+        }
+        stored = 0;
+    }
+
+    /**
+     * Writes the heap tier to channel and flushes the spill file to disk, so the two match
+     * what a later read and the same spill file would restore.
+     */
+    public void write(FileChannel channel) throws IOException {
+        for (MappedByteBuffer chunk : spillMaps) {
+            chunk.force();
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        buffer.putInt(keys.length).putLong(stored);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (buffer.remaining() < 24) {
+                drain(buffer, channel);
+            }
+            buffer.putLong(keys[slot]).putLong(entries[slot]).putLong(work[slot]);
+        }
+        drain(buffer, channel);
+    }
+
+    // reads a heap tier written by write, the table must be the same size
+    public void read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        buffer.flip();
+        fill(buffer, channel, 12);
+        if (buffer.getInt() != keys.length) {
+            throw new IOException("checkpoint was written for a different table size");
+        }
+        stored = buffer.getLong();
+        for (int slot = 0; slot < keys.length; slot++) {
+            fill(buffer, channel, 24);
+            keys[slot] = buffer.getLong();
+            entries[slot] = buffer.getLong();
+            work[slot] = buffer.getLong();
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // makes at least wanted bytes readable in buffer
+    private static void fill(ByteBuffer buffer, FileChannel channel, int wanted) throws IOException {
+        if (buffer.remaining() >= wanted) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < wanted) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("truncated checkpoint");
+            }
+        }
+        buffer.flip();
+    }
+
+    // positions in the heap tier
+    public long getStored() {
+        return stored;
+    }
+
+    public int getHeapSlots() {
+        return keys.length;
+    }
+
+    public long getSpillSlots() {
+        return spillChunks.length == 0 ? 0 : spillMask + 1;
+    }
+
+    // entries moved from the heap tier to the spill file
+    public long getSpilled() {
+        return spilled;
+    }
+
+    // lookups answered from the spill file
+    public long getSpillHits() {
+        return spillHits;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spillChannel != null) {
+            spillChannel.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks a uniformly random empty square.  Each instance owns its random generator, so give
+ * every thread its own player.
+ */
+class RandomPlayer implements Player {
+
+    private final SplittableRandom random;
+
+    public RandomPlayer(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public int selectMove(BackEnd board) {
+        if (board.checkForWin()) {
+            return -1;
+        }
+        return board.randomEmptyCell(random);
+    }
+}
@@ -0,0 +1,204 @@
+package tictactoe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Win, loss and tie totals that many games can update at once without a shared lock.
+ * Global totals and per-player standings are LongAdders.  Readers get an immutable
+ * Snapshot, published periodically (or on demand), that also holds a top-N leaderboard.
+ *
+ * The leaderboard is kept up to date incrementally: updated players are queued, and each
+ * publish only re-ranks those.  Points (2 per win, 1 per tie) never go down, so a player
+ * outside the top N can only get in by being updated themselves, which keeps this exact.
+ */
+class Scoreboard {
+
+    public static final int X_WINS = 0;
+    public static final int O_WINS = 1;
+    public static final int TIE = 2;
+
+    private final LongAdder[] totals = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private final ConcurrentHashMap<String, Standing> standings = new ConcurrentHashMap<>();
+    private final Queue<Standing> dirty = new ConcurrentLinkedQueue<>();
+    private final int leaderboardSize;
+
+    // only touched by publish, which is synchronized
+    private final TreeSet<Entry> leaders = new TreeSet<>();
+    private final Map<String, Entry> leaderEntries = new HashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(0, 0, 0, Collections.emptyList());
+    private ScheduledExecutorService publisher;
+
+    public Scoreboard(int leaderboardSize) {
+        this.leaderboardSize = leaderboardSize;
+    }
+
+    // records a game between two named players, result is X_WINS, O_WINS or TIE
+    public void recordGame(String xPlayer, String oPlayer, int result) {
+        totals[result].increment();
+        Standing x = standing(xPlayer);
+        Standing o = standing(oPlayer);
+        if (result == TIE) {
+            x.ties.increment();
+            o.ties.increment();
+        } else {
+            Standing winner = result == X_WINS ? x : o;
+            Standing loser = result == X_WINS ? o : x;
+            winner.wins.increment();
+            loser.losses.increment();
+        }
+        markDirty(x);
+        markDirty(o);
+    }
+
+    // adds results that were counted elsewhere (like SelfPlay's per-worker totals) to the global totals
+    public void addTotals(long xWins, long oWins, long ties) {
+        totals[X_WINS].add(xWins);
+        totals[O_WINS].add(oWins);
+        totals[TIE].add(ties);
+    }
+
+    // current X wins, O wins and ties, summed now rather than from the last snapshot
+    public long[] getTotals() {
+        return new long[] {totals[X_WINS].sum(), totals[O_WINS].sum(), totals[TIE].sum()};
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // publishes a snapshot every periodMillis on a daemon thread
+    public synchronized void startPublishing(long periodMillis) {
+        if (publisher == null) {
+            publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "scoreboard-publisher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            publisher.scheduleAtFixedRate(this::publish, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stopPublishing() {
+        if (publisher != null) {
+            publisher.shutdown();
+            publisher = null;
+        }
+    }
+
+    // re-ranks the players updated since the last publish and swaps in a new snapshot
+    public synchronized Snapshot publish() {
+        for (Standing standing; (standing = dirty.poll()) != null; ) {
+            standing.queued.set(false);
+            rank(standing);
+        }
+        List<Entry> top = new ArrayList<>(leaders);
+        long[] current = getTotals();
+        snapshot = new Snapshot(current[X_WINS], current[O_WINS], current[TIE], Collections.unmodifiableList(top));
+        return snapshot;
+    }
+
+    private void rank(Standing standing) {
+        Entry updated = new Entry(standing.name, standing.wins.sum(), standing.losses.sum(), standing.ties.sum());
+        Entry previous = leaderEntries.remove(standing.name);
+        if (previous != null) {
+            leaders.remove(previous);
+        } else if (leaders.size() >= leaderboardSize && updated.compareTo(leaders.last()) > 0) {
+            return;
+        }
+        leaders.add(updated);
+        leaderEntries.put(updated.name, updated);
+        if (leaders.size() > leaderboardSize) {
+            leaderEntries.remove(leaders.pollLast().name);
+        }
+    }
+
+    private Standing standing(String name) {
+        return standings.computeIfAbsent(name, Standing::new);
+    }
+
+    private void markDirty(Standing standing) {
+        if (standing.queued.compareAndSet(false, true)) {
+            dirty.add(standing);
+        }
+    }
+
+    private static final class Standing {
+        final String name;
+        final LongAdder wins = new LongAdder();
+        final LongAdder losses = new LongAdder();
+        final LongAdder ties = new LongAdder();
+        final AtomicBoolean queued = new AtomicBoolean();
+
+        Standing(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * One player's record at the time of a snapshot.  Sorted by points, best first.
+     */
+    static final class Entry implements Comparable<Entry> {
+        final String name;
+        final long wins;
+        final long losses;
+        final long ties;
+
+        Entry(String name, long wins, long losses, long ties) {
+            this.name = name;
+            this.wins = wins;
+            this.losses = losses;
+            this.ties = ties;
+        }
+
+        // 2 per win and 1 per tie
+        long getPoints() {
+            return 2 * wins + ties;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byPoints = Long.compare(other.getPoints(), getPoints());
+            return byPoints != 0 ? byPoints : name.compareTo(other.name);
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + wins + "-" + losses + "-" + ties;
+        }
+    }
+
+    /**
+     * Immutable view of the totals and the leaderboard at one point in time.
+     */
+    static final class Snapshot {
+        final long xWins;
+        final long oWins;
+        final long ties;
+        final List<Entry> leaders;
+
+        Snapshot(long xWins, long oWins, long ties, List<Entry> leaders) {
+            this.xWins = xWins;
+            this.oWins = oWins;
+            this.ties = ties;
+            this.leaders = leaders;
+        }
+
+        long getGames() {
+            return xWins + oWins + ties;
+        }
+    }
+}
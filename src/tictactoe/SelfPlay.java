@@ -0,0 +1,208 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Headless computer vs computer games for testing and statistics.  Games are split across
+ * a fork-join pool, and every worker has its own board, players and random generator, so
+ * nothing is shared until the per-worker totals are added up at the end.  Nothing is
+ * printed per move.  Games can be kept in binary game logs, one file per worker so the
+ * writers never contend.
+ */
+class SelfPlay {
+
+    private final int size;
+    private final int winLength;
+    private final int threads;
+    private final Function<SplittableRandom, Player> xPlayers;
+    private final Function<SplittableRandom, Player> oPlayers;
+    private final int randomOpeningPlies;
+    private final long seed;
+
+    // X wins, O wins and ties, indexed by Scoreboard.X_WINS, O_WINS and TIE
+    private final long[] scores = new long[3];
+    private long elapsedNanos;
+    private Scoreboard scoreboard;
+    private String xName = "X";
+    private String oName = "O";
+    private Path log;
+
+    /**
+     * @param xPlayers makes X's player for one worker from that worker's random generator
+     * @param oPlayers makes O's player for one worker
+     * @param randomOpeningPlies moves played at random before the players take over, so
+     *                           deterministic players don't repeat the same game
+     */
+    public SelfPlay(int size, int winLength, int threads, Function<SplittableRandom, Player> xPlayers,
+                    Function<SplittableRandom, Player> oPlayers, int randomOpeningPlies, long seed) {
+        this.size = size;
+        this.winLength = winLength;
+        this.threads = threads;
+        this.xPlayers = xPlayers;
+        this.oPlayers = oPlayers;
+        this.randomOpeningPlies = randomOpeningPlies;
+        this.seed = seed;
+    }
+
+    // records every game on the scoreboard under the given player names
+    public void setScoreboard(Scoreboard scoreboard, String xName, String oName) {
+        this.scoreboard = scoreboard;
+        this.xName = xName;
+        this.oName = oName;
+    }
+
+    /**
+     * Writes every game to a GameLogWriter log.  Each worker gets its own file, named
+     * log.0, log.1 and so on.
+     */
+    public void setLog(Path log) {
+        if (!GameLogWriter.isValid(size, winLength, Scoreboard.TIE, 0)) {
+            throw new IllegalArgumentException("game logs hold boards from 3x3 up to " + GameRecord.MAX_MOVES
+                    + " squares, with a win length up to the size");
+        }
+        this.log = log;
+    }
+
+    // the log file written by worker t
+    public static Path workerLog(Path log, int t) {
+        return log.resolveSibling(log.getFileName() + "." + t);
+    }
+
+    /**
+     * Player description used on the command line: "random", "heuristic",
+     * "search:&lt;millis&gt;[:threads]" or "mcts:&lt;millis&gt;[:playouts]".  The games already run in
+     * parallel, so each MCTS player gets one thread, seeded from the worker's generator.  With
+     * millis 0 and a playout budget its moves don't depend on timing, and a fixed seed replays
+     * the same games.
+     */
+    public static Function<SplittableRandom, Player> parsePlayer(String spec) {
+        if (spec.equals("random")) {
+            return RandomPlayer::new;
+        }
+        if (spec.equals("heuristic")) {
+            return HeuristicPlayer::new;
+        }
+        if (spec.startsWith("search:")) {
+            String[] parts = spec.split(":");
+            long millis = Long.parseLong(parts[1]);
+            int threads = parts.length > 2 ? Integer.parseInt(parts[2]) : 1;
+            if (threads > 1) {
+                return random -> new ParallelSearch(millis, threads, new TranspositionTable(16));
+            }
+            return random -> new AlphaBetaSearch(millis, new TranspositionTable(16));
+        }
+        if (spec.startsWith("mcts:")) {
+            String[] parts = spec.split(":");
+            long millis = Long.parseLong(parts[1]);
+            long playouts = parts.length > 2 ? Long.parseLong(parts[2]) : 0;
+            return random -> new MonteCarloSearch(millis, playouts, 1, 16L << 20, random);
+        }
+        throw new IllegalArgumentException("unknown player: " + spec);
+    }
+
+    // plays the games and returns X wins, O wins and ties
+    public long[] run(long games) throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        SplittableRandom master = new SplittableRandom(seed);
+        List<Callable<long[]>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long share = games / threads + (t < games % threads ? 1 : 0);
+            SplittableRandom random = master.split();
+            Path workerLog = log == null ? null : workerLog(log, t);
+            workers.add(() -> playGames(share, random, workerLog));
+        }
+
+        long start = System.nanoTime();
+        try {
+            for (Future<long[]> result : pool.invokeAll(workers)) {
+                long[] counts = result.get();
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] += counts[i];
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return scores.clone();
+    }
+
+    private long[] playGames(long games, SplittableRandom random, Path workerLog) throws IOException {
+        BackEnd board = size * size <= BitBoard.MAX_CELLS
+                ? new BitBoard(size, size, winLength) : new BackEnd(size, size, winLength);
+        Player x = xPlayers.apply(random.split());
+        Player o = oPlayers.apply(random.split());
+        Player opener = new RandomPlayer(random.split());
+        long[] counts = new long[3];
+        int[] moves = new int[size * size];
+
+        Metrics metrics = Metrics.global();
+        GameLogWriter writer = workerLog == null ? null : new GameLogWriter(workerLog);
+        try {
+            for (long g = 0; g < games; g++) {
+                int result = playGame(board, x, o, opener, moves);
+                counts[result]++;
+                metrics.recordGame();
+                if (scoreboard != null) {
+                    scoreboard.recordGame(xName, oName, result);
+                }
+                if (writer != null) {
+                    writer.append(size, winLength, result, moves, board.getMarkCount());
+                }
+            }
+        } finally {
+            metrics.recordWinChecks(board.drainWinChecks());
+            x.close();
+            o.close();
+            if (writer != null) {
+                writer.close();
+            }
+        }
+        return counts;
+    }
+
+    // Scoreboard.X_WINS, O_WINS or TIE, which also index scores, the squares
+    // played go into moves in order
+    private int playGame(BackEnd board, Player x, Player o, Player opener, int[] moves) {
+        board.initializeBoard(size, size);
+        board.setPlayer('x');
+        for (int ply = 0; ; ply++) {
+            boolean xToMove = board.getCurrentPlayerMark() == 'x';
+            Player mover = ply < randomOpeningPlies ? opener : xToMove ? x : o;
+            int move = mover.selectMove(board);
+            moves[ply] = move;
+            board.placeMark(move / size, move % size);
+            if (board.checkForWin()) {
+                return xToMove ? Scoreboard.X_WINS : Scoreboard.O_WINS;
+            }
+            if (board.isBoardFull()) {
+                return Scoreboard.TIE;
+            }
+            board.changePlayer();
+        }
+    }
+
+    public long[] getScores() {
+        return scores.clone();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+        long games = scores[0] + scores[1] + scores[2];
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,86 @@
+package tictactoe;
+
+/**
+ * Sequential probability ratio test on the results of one pairing: is the first player
+ * elo0 or elo1 points stronger than the second?  After every batch of games the log
+ * likelihood ratio of the two is compared with bounds set by the error rates, and the
+ * pairing stops as soon as it crosses one.  Results come as wins, draws and losses, and the
+ * ratio is the usual normal approximation of the generalized test, so it needs no model of
+ * how often the players draw.  A pairing also stops when the 95% interval of the difference
+ * fits between elo0 and elo1.
+ */
+class Sprt {
+
+    public static final int CONTINUE = 0;
+    public static final int ACCEPT_ELO0 = 1;
+    public static final int ACCEPT_ELO1 = 2;
+    // the difference is between elo0 and elo1
+    public static final int INDIFFERENT = 3;
+
+    private final double elo0;
+    private final double elo1;
+    private final double score0;
+    private final double score1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    /**
+     * @param alpha chance of accepting elo1 when elo0 is true
+     * @param beta chance of accepting elo0 when elo1 is true
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo0 >= elo1) {
+            throw new IllegalArgumentException("elo0 must be below elo1");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.score0 = Elo.expectedScore(elo0);
+        this.score1 = Elo.expectedScore(elo1);
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    // log of how much likelier the results are under elo1 than under elo0
+    public double logLikelihoodRatio(long wins, long draws, long losses) {
+        if (wins + draws + losses == 0) {
+            return 0;
+        }
+        // one extra win and loss, or a few one sided or drawn games would show no spread
+        wins++;
+        losses++;
+        long games = wins + draws + losses;
+        double score = (wins + draws / 2.0) / games;
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * Elo.variance(wins, draws, losses));
+    }
+
+    // CONTINUE, ACCEPT_ELO0, ACCEPT_ELO1 or INDIFFERENT
+    public int status(long wins, long draws, long losses) {
+        double ratio = logLikelihoodRatio(wins, draws, losses);
+        if (ratio >= upperBound) {
+            return ACCEPT_ELO1;
+        }
+        if (ratio <= lowerBound) {
+            return ACCEPT_ELO0;
+        }
+        // evenly matched players sit between the bounds for a long time, so stop once the
+        // interval fits between the hypotheses and neither can be accepted
+        double[] elo = Elo.difference(wins + 1, draws, losses + 1);
+        return elo[1] > elo0 && elo[2] < elo1 ? INDIFFERENT : CONTINUE;
+    }
+
+    public double getElo0() {
+        return elo0;
+    }
+
+    public double getElo1() {
+        return elo1;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+}
@@ -0,0 +1,158 @@
+package tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Static evaluation for K in a row on any board, kept up to date move by move through
+ * MoveListener.  Every K long window of squares (in all four directions) that holds marks
+ * of only one player is live for that player, and the evaluator counts live windows by how
+ * many marks they hold.  Open runs show up in more live windows than half-open ones, and
+ * blocked runs in none, so these counts rank threats the same way open and half-open run
+ * counts would without having to find run ends.
+ *
+ * Placing or clearing a mark only touches the windows through its square (at most 4K), and
+ * evaluate reads K counts per player, so a leaf costs O(K) instead of a scan of the board.
+ */
+class ThreatEvaluator implements MoveListener {
+
+    // evaluations are clamped to this, far from any win score
+    private static final int MAX_SCORE = AlphaBetaSearch.WIN_SCORE / 2;
+
+    private int numRows;
+    private int numColumns;
+    private int winLength;
+
+    // windows through each square, and each window's mark counts
+    private int[][] cellWindows;
+    private int[] xCounts;
+    private int[] oCounts;
+
+    // live windows by number of marks, index 0 unused
+    private int[] xLive;
+    private int[] oLive;
+
+    // score of a live window by its marks, 4 times more per extra mark
+    private int[] weights;
+
+    // score of the position for the given player, positive when they are ahead
+    public int evaluate(char mark) {
+        int score = 0;
+        for (int c = 1; c < winLength; c++) {
+            score += weights[c] * (xLive[c] - oLive[c]);
+        }
+        score = Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+        return mark == 'x' ? score : -score;
+    }
+
+    // live windows holding exactly the given number of the player's marks
+    public int getLiveWindows(char mark, int marks) {
+        return mark == 'x' ? xLive[marks] : oLive[marks];
+    }
+
+    @Override
+    public void markPlaced(int cell, char mark) {
+        for (int w : cellWindows[cell]) {
+            tally(w, -1);
+            if (mark == 'x') {
+                xCounts[w]++;
+            } else {
+                oCounts[w]++;
+            }
+            tally(w, 1);
+        }
+    }
+
+    @Override
+    public void markCleared(int cell, char mark) {
+        for (int w : cellWindows[cell]) {
+            tally(w, -1);
+            if (mark == 'x') {
+                xCounts[w]--;
+            } else {
+                oCounts[w]--;
+            }
+            tally(w, 1);
+        }
+    }
+
+    @Override
+    public void positionReset(BackEnd board) {
+        if (cellWindows == null || numRows != board.getNumRows() || numColumns != board.getNumColumns()
+                || winLength != board.getWinLength()) {
+            buildWindows(board.getNumRows(), board.getNumColumns(), board.getWinLength());
+        }
+        Arrays.fill(xCounts, 0);
+        Arrays.fill(oCounts, 0);
+        Arrays.fill(xLive, 0);
+        Arrays.fill(oLive, 0);
+        char[][] squares = board.getBoard();
+        for (int cell = 0; cell < numRows * numColumns; cell++) {
+            char mark = squares[cell / numColumns][cell % numColumns];
+            if (mark != '-') {
+                markPlaced(cell, mark);
+            }
+        }
+    }
+
+    // adds (sign 1) or removes (sign -1) a window's contribution to the live counts
+    private void tally(int w, int sign) {
+        int x = xCounts[w];
+        int o = oCounts[w];
+        if (o == 0 && x > 0) {
+            xLive[x] += sign;
+        } else if (x == 0 && o > 0) {
+            oLive[o] += sign;
+        }
+    }
+
+    private void buildWindows(int numRows, int numColumns, int winLength) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.winLength = winLength;
+        int cells = numRows * numColumns;
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+        // count first so every square gets an exactly sized array
+        int[] perCell = new int[cells];
+        int windows = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            windows = 0;
+            for (int[] d : directions) {
+                for (int i = 0; i < numRows; i++) {
+                    for (int j = 0; j < numColumns; j++) {
+                        int endRow = i + d[0] * (winLength - 1);
+                        int endCol = j + d[1] * (winLength - 1);
+                        if (endRow < 0 || endRow >= numRows || endCol < 0 || endCol >= numColumns) {
+                            continue;
+                        }
+                        for (int n = 0; n < winLength; n++) {
+                            int cell = (i + d[0] * n) * numColumns + j + d[1] * n;
+                            if (pass == 0) {
+                                perCell[cell]++;
+                            } else {
+                                cellWindows[cell][perCell[cell]++] = windows;
+                            }
+                        }
+                        windows++;
+                    }
+                }
+            }
+            if (pass == 0) {
+                cellWindows = new int[cells][];
+                for (int cell = 0; cell < cells; cell++) {
+                    cellWindows[cell] = new int[perCell[cell]];
+                    perCell[cell] = 0;
+                }
+            }
+        }
+
+        xCounts = new int[windows];
+        oCounts = new int[windows];
+        xLive = new int[winLength + 1];
+        oLive = new int[winLength + 1];
+        weights = new int[winLength + 1];
+        for (int c = 1; c <= winLength; c++) {
+            weights[c] = 1 << (2 * (c - 1));
+        }
+    }
+}
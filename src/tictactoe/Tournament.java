@@ -0,0 +1,451 @@
+package tictactoe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Computer players against each other, for tuning one strategy against another.  Players
+ * meet in a round robin or in Swiss rounds, and every pairing plays game pairs: one random
+ * opening, then the same opening again with colors swapped, so neither player gets the
+ * better side of it.  A pairing ends after its maximum number of games or, earlier, once
+ * its sequential test is conclusive, so settled pairings don't hold up the rest.
+ *
+ * The game pairs of a round are spread over a fork-join pool.  As in SelfPlay every worker
+ * has its own board, players and random generator, and workers take a game pair from
+ * whichever pairing of the round still needs games.  The ratings at the end come from all
+ * games together, see Elo.  Players live across rounds until the tournament is closed.
+ */
+class Tournament implements AutoCloseable {
+
+    /**
+     * Games between two players, counted from the first player's side.  Results come in
+     * from several workers, so the counts are guarded by the pairing's lock.
+     */
+    public static final class Pairing {
+
+        private final int first;
+        private final int second;
+        private long wins;
+        private long draws;
+        private long losses;
+        private int inFlight;
+        private int status = Sprt.CONTINUE;
+
+        Pairing(int first, int second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        // claims a game pair, false once the pairing has all the games it needs
+        synchronized boolean reserve(long maxGames) {
+            if (status != Sprt.CONTINUE || getGames() + inFlight >= maxGames) {
+                return false;
+            }
+            inFlight += 2;
+            return true;
+        }
+
+        // points is 0, 1/2 or 1 for each game of the pair, from the first player's side
+        synchronized void record(double[] points, Sprt sprt) {
+            inFlight -= 2;
+            for (double p : points) {
+                if (p == 1) {
+                    wins++;
+                } else if (p == 0) {
+                    losses++;
+                } else {
+                    draws++;
+                }
+            }
+            if (sprt != null && status == Sprt.CONTINUE) {
+                status = sprt.status(wins, draws, losses);
+            }
+        }
+
+        public int getFirst() {
+            return first;
+        }
+
+        public int getSecond() {
+            return second;
+        }
+
+        public synchronized long getWins() {
+            return wins;
+        }
+
+        public synchronized long getDraws() {
+            return draws;
+        }
+
+        public synchronized long getLosses() {
+            return losses;
+        }
+
+        public synchronized long getGames() {
+            return wins + draws + losses;
+        }
+
+        // points scored by the first player
+        public synchronized double getPoints() {
+            return wins + draws / 2.0;
+        }
+
+        // Sprt.CONTINUE unless the test stopped the pairing early
+        public synchronized int getStatus() {
+            return status;
+        }
+    }
+
+    private final int size;
+    private final int winLength;
+    private final int threads;
+    private final long maxGamesPerPairing;
+    private final int randomOpeningPlies;
+    private final SplittableRandom master;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Function<SplittableRandom, Player>> factories = new ArrayList<>();
+    private final List<Pairing> pairings = new ArrayList<>();
+    private Sprt sprt = new Sprt(-50, 50, 0.05, 0.05);
+
+    // every worker's players, made on first use and kept between rounds
+    private Player[][] players;
+    private SplittableRandom[] randoms;
+    private int[] byes;
+    private long elapsedNanos;
+
+    /**
+     * @param maxGamesPerPairing games a pairing plays unless its test ends it first, rounded
+     *                           up to whole game pairs
+     * @param randomOpeningPlies moves played at random before the players take over, capped
+     *                           below the 2 * winLength - 1 a win needs so no opening is decided
+     */
+    public Tournament(int size, int winLength, int threads, long maxGamesPerPairing, int randomOpeningPlies,
+                      long seed) {
+        this.size = size;
+        this.winLength = winLength;
+        this.threads = threads;
+        this.maxGamesPerPairing = maxGamesPerPairing;
+        this.randomOpeningPlies = Math.min(randomOpeningPlies, 2 * winLength - 2);
+        this.master = new SplittableRandom(seed);
+    }
+
+    /**
+     * @param factory makes the player for one worker from that worker's random generator,
+     *                see SelfPlay.parsePlayer
+     */
+    public void addPlayer(String name, Function<SplittableRandom, Player> factory) {
+        if (players != null) {
+            throw new IllegalStateException("players must be added before the first round");
+        }
+        names.add(name);
+        factories.add(factory);
+    }
+
+    /**
+     * Test each pairing runs after every game pair, testing elo0 against elo1 for the first
+     * player.  The default is -50 against +50 at 5% errors both ways, which settles lopsided
+     * pairings in a few games and even ones in a few dozen.  null plays every pairing to its
+     * maximum.
+     */
+    public void setSprt(Sprt sprt) {
+        this.sprt = sprt;
+    }
+
+    // every player meets every other player once
+    public void runRoundRobin() throws InterruptedException {
+        List<Pairing> round = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                round.add(new Pairing(i, j));
+            }
+        }
+        play(round);
+    }
+
+    /**
+     * Each round pairs players with equal or close match points, best first, avoiding
+     * rematches while it can.  Winning a pairing is worth a match point, drawing it half,
+     * and with an odd number of players the lowest unpaired one sits out with a bye worth
+     * a win.
+     */
+    public void runSwiss(int rounds) throws InterruptedException {
+        for (int r = 0; r < rounds; r++) {
+            play(swissRound());
+        }
+    }
+
+    private List<Pairing> swissRound() {
+        if (byes == null) {
+            byes = new int[names.size()];
+        }
+        double[] matchPoints = getMatchPoints();
+        Integer[] order = new Integer[names.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> -matchPoints[i]));
+
+        boolean[] paired = new boolean[order.length];
+        List<Pairing> round = new ArrayList<>();
+        for (int a = 0; a < order.length; a++) {
+            if (paired[a]) {
+                continue;
+            }
+            int opponent = -1;
+            for (int b = a + 1; b < order.length; b++) {
+                if (!paired[b] && (opponent < 0 || (haveMet(order[a], order[opponent])
+                        && !haveMet(order[a], order[b])))) {
+                    opponent = b;
+                }
+            }
+            paired[a] = true;
+            if (opponent < 0) {
+                byes[order[a]]++;
+                continue;
+            }
+            paired[opponent] = true;
+            round.add(new Pairing(order[a], order[opponent]));
+        }
+        return round;
+    }
+
+    private boolean haveMet(int a, int b) {
+        for (Pairing pairing : pairings) {
+            if ((pairing.first == a && pairing.second == b) || (pairing.first == b && pairing.second == a)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // match points of every player, see runSwiss
+    public double[] getMatchPoints() {
+        double[] matchPoints = new double[names.size()];
+        for (Pairing pairing : pairings) {
+            double points = pairing.getPoints();
+            double half = pairing.getGames() / 2.0;
+            matchPoints[pairing.first] += points > half ? 1 : points == half ? 0.5 : 0;
+            matchPoints[pairing.second] += points < half ? 1 : points == half ? 0.5 : 0;
+        }
+        for (int i = 0; byes != null && i < byes.length; i++) {
+            matchPoints[i] += byes[i];
+        }
+        return matchPoints;
+    }
+
+    // plays the round's pairings on all workers and returns when every one has ended
+    private void play(List<Pairing> round) throws InterruptedException {
+        pairings.addAll(round);
+        if (players == null) {
+            players = new Player[threads][names.size()];
+            randoms = new SplittableRandom[threads];
+            for (int t = 0; t < threads; t++) {
+                randoms[t] = master.split();
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(() -> playPairings(round, worker));
+        }
+
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> result : pool.invokeAll(workers)) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        elapsedNanos += System.nanoTime() - start;
+    }
+
+    private Void playPairings(List<Pairing> round, int worker) {
+        SplittableRandom random = randoms[worker];
+        BackEnd board = size * size <= BitBoard.MAX_CELLS
+                ? new BitBoard(size, size, winLength) : new BackEnd(size, size, winLength);
+        Player opener = new RandomPlayer(random.split());
+        int[] opening = new int[randomOpeningPlies];
+        double[] points = new double[2];
+        Metrics metrics = Metrics.global();
+        try {
+            // workers start on different pairings so they don't all queue on one lock
+            for (int next = worker; ; next++) {
+                Pairing pairing = reserve(round, next);
+                if (pairing == null) {
+                    return null;
+                }
+                Player first = player(worker, pairing.first);
+                Player second = player(worker, pairing.second);
+                randomOpening(board, opener, opening);
+                int firstAsX = playGame(board, first, second, opening);
+                int firstAsO = playGame(board, second, first, opening);
+                points[0] = firstAsX == Scoreboard.X_WINS ? 1 : firstAsX == Scoreboard.O_WINS ? 0 : 0.5;
+                points[1] = firstAsO == Scoreboard.O_WINS ? 1 : firstAsO == Scoreboard.X_WINS ? 0 : 0.5;
+                pairing.record(points, sprt);
+                metrics.recordGame();
+                metrics.recordGame();
+            }
+        } finally {
+            metrics.recordWinChecks(board.drainWinChecks());
+        }
+    }
+
+    private Pairing reserve(List<Pairing> round, int start) {
+        for (int i = 0; i < round.size(); i++) {
+            Pairing pairing = round.get((start + i) % round.size());
+            if (pairing.reserve(maxGamesPerPairing)) {
+                return pairing;
+            }
+        }
+        return null;
+    }
+
+    private Player player(int worker, int index) {
+        Player player = players[worker][index];
+        if (player == null) {
+            player = factories.get(index).apply(randoms[worker].split());
+            players[worker][index] = player;
+        }
+        return player;
+    }
+
+    private void randomOpening(BackEnd board, Player opener, int[] opening) {
+        board.initializeBoard(size, size);
+        board.setPlayer('x');
+        for (int ply = 0; ply < opening.length; ply++) {
+            opening[ply] = opener.selectMove(board);
+            board.placeMark(opening[ply] / size, opening[ply] % size);
+            board.changePlayer();
+        }
+    }
+
+    // index into the scoreboard results, see Scoreboard.X_WINS, O_WINS and TIE
+    private int playGame(BackEnd board, Player x, Player o, int[] opening) {
+        board.initializeBoard(size, size);
+        board.setPlayer('x');
+        for (int move : opening) {
+            board.placeMark(move / size, move % size);
+            board.changePlayer();
+        }
+        while (true) {
+            boolean xToMove = board.getCurrentPlayerMark() == 'x';
+            int move = (xToMove ? x : o).selectMove(board);
+            board.placeMark(move / size, move % size);
+            if (board.checkForWin()) {
+                return xToMove ? Scoreboard.X_WINS : Scoreboard.O_WINS;
+            }
+            if (board.isBoardFull()) {
+                return Scoreboard.TIE;
+            }
+            board.changePlayer();
+        }
+    }
+
+    public List<Pairing> getPairings() {
+        return pairings;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    // rating of every player in the order added, averaging 0
+    public double[] getRatings() {
+        return Elo.ratings(getPoints(), getGames());
+    }
+
+    private double[][] getPoints() {
+        double[][] points = new double[names.size()][names.size()];
+        for (Pairing pairing : pairings) {
+            points[pairing.first][pairing.second] += pairing.getPoints();
+            points[pairing.second][pairing.first] += pairing.getGames() - pairing.getPoints();
+        }
+        return points;
+    }
+
+    private long[][] getGames() {
+        long[][] games = new long[names.size()][names.size()];
+        for (Pairing pairing : pairings) {
+            games[pairing.first][pairing.second] += pairing.getGames();
+            games[pairing.second][pairing.first] += pairing.getGames();
+        }
+        return games;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // closes every worker's players, no more rounds can be played after this
+    @Override
+    public void close() {
+        for (int t = 0; players != null && t < players.length; t++) {
+            for (Player player : players[t]) {
+                if (player != null) {
+                    player.close();
+                }
+            }
+        }
+    }
+
+    // standings by rating, then every pairing with its rating difference and test result
+    public String report() {
+        double[][] points = getPoints();
+        long[][] games = getGames();
+        double[] ratings = Elo.ratings(points, games);
+        double[] margins = Elo.ratingMargins(ratings, games);
+        double[] matchPoints = getMatchPoints();
+        Integer[] order = new Integer[names.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> -ratings[i]));
+
+        int width = 6;
+        for (String name : names) {
+            width = Math.max(width, name.length());
+        }
+        StringBuilder report = new StringBuilder(String.format("%-4s %-" + width + "s %6s %5s %7s %9s %6s%n",
+                "rank", "player", "elo", "+-", "games", "points", "match"));
+        for (int r = 0; r < order.length; r++) {
+            int i = order[r];
+            long played = 0;
+            double scored = 0;
+            for (int j = 0; j < names.size(); j++) {
+                played += games[i][j];
+                scored += points[i][j];
+            }
+            report.append(String.format("%4d %-" + width + "s %+6.0f %5.0f %7d %9.1f %6.1f%n", r + 1,
+                    names.get(i), ratings[i], margins[i], played, scored, matchPoints[i]));
+        }
+        for (Pairing pairing : pairings) {
+            long wins = pairing.getWins();
+            long draws = pairing.getDraws();
+            long losses = pairing.getLosses();
+            double[] elo = Elo.difference(wins, draws, losses);
+            String test = sprt == null ? "" : String.format(", llr %.2f [%.2f, %.2f]%s",
+                    sprt.logLikelihoodRatio(wins, draws, losses), sprt.getLowerBound(), sprt.getUpperBound(),
+                    pairing.getStatus() == Sprt.ACCEPT_ELO1 ? String.format(" accepted %+.0f", sprt.getElo1())
+                            : pairing.getStatus() == Sprt.ACCEPT_ELO0 ? String.format(" accepted %+.0f", sprt.getElo0())
+                            : pairing.getStatus() == Sprt.INDIFFERENT ? " even" : "");
+            report.append(String.format("%s vs %s: +%d =%d -%d, elo %+.0f [%+.0f, %+.0f]%s%n",
+                    names.get(pairing.first), names.get(pairing.second), wins, draws, losses,
+                    elo[0], elo[1], elo[2], test));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package tictactoe;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed size transposition table for the search, backed by two primitive long arrays.
+ * Each key probes a short window of slots (open addressing).  When the window is full the
+ * shallowest entry is replaced, but only by an equal or deeper result; entries left over
+ * from an earlier search can always be replaced.  Hit, miss and collision counts are kept
+ * so the table can be sized for production.
+ *
+ * Several search threads can share one table without locks.  A slot stores the key xor
+ * the entry, so a probe only accepts a slot whose two halves were written together; a
+ * slot torn by a racing store reads as a miss instead of a wrong result.
+ *
+ * An entry packs score (32 bits), move + 1 (14 bits), depth + 1 (8 bits), bound type
+ * (2 bits) and search generation (8 bits) into one long, so an empty slot is 0.  The move
+ * field limits boards to MAX_CELLS squares, which AlphaBetaSearch checks before it
+ * searches, and depths to 254.
+ */
+class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    // returned by probe when the position isn't stored
+    public static final long NO_ENTRY = 0;
+
+    // largest board whose moves fit the entry, one value of the move field means no move
+    public static final int MAX_CELLS = (1 << 14) - 1;
+
+    private static final int PROBE_WINDOW = 4;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int indexMask;
+    private int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // table with 2^sizeBits slots, 16 bytes per slot
+    public TranspositionTable(int sizeBits) {
+        keys = new long[1 << sizeBits];
+        entries = new long[1 << sizeBits];
+        indexMask = (1 << sizeBits) - 1;
+    }
+
+    public long probe(long key) {
+        int index = index(key);
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (index + i) & indexMask;
+            long entry = entries[slot];
+            if (entry == NO_ENTRY) {
+                break;
+            }
+            if ((keys[slot] ^ entry) == key) {
+                hits.increment();
+                return entry;
+            }
+            if (i == 0) {
+                collisions.increment();
+            }
+        }
+        misses.increment();
+        return NO_ENTRY;
+    }
+
+    public void store(long key, int depth, int bound, int score, int move) {
+        long entry = pack(depth, bound, score, move);
+        int index = index(key);
+        int victim = -1;
+        int victimDepth = Integer.MAX_VALUE;
+
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (index + i) & indexMask;
+            long existing = entries[slot];
+            if (existing == NO_ENTRY || (keys[slot] ^ existing) == key) {
+                if (existing == NO_ENTRY || depth >= depth(existing) || generation(existing) != generation) {
+                    write(slot, key, entry);
+                } else {
+                    rejected.increment();
+                }
+                return;
+            }
+            // stale entries go first, then the shallowest
+            int slotDepth = generation(existing) != generation ? -1 : depth(existing);
+            if (slotDepth < victimDepth) {
+                victim = slot;
+                victimDepth = slotDepth;
+            }
+        }
+
+        if (depth >= victimDepth) {
+            write(victim, key, entry);
+        } else {
+            rejected.increment();
+        }
+    }
+
+    private void write(int slot, long key, long entry) {
+        keys[slot] = key ^ entry;
+        entries[slot] = entry;
+        stores.increment();
+    }
+
+    // call before each new search so older entries lose their depth priority, not while
+    // threads are searching
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+    }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & indexMask;
+    }
+
+    private long pack(int depth, int bound, int score, int move) {
+        return (score & 0xFFFFFFFFL)
+                | ((long) ((move + 1) & 0x3FFF) << 32)
+                | ((long) ((depth + 1) & 0xFF) << 46)
+                | ((long) bound << 54)
+                | ((long) generation << 56);
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    // -1 when no move was stored
+    public static int move(long entry) {
+        return (int) ((entry >>> 32) & 0x3FFF) - 1;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 46) & 0xFF) - 1;
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 54) & 0x3);
+    }
+
+    private static int generation(long entry) {
+        return (int) ((entry >>> 56) & 0xFF);
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // probes whose home slot held a different position
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    // stores dropped because every slot in the window held a deeper result
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+        stores.reset();
+        rejected.reset();
+    }
+}
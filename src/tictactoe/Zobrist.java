@@ -0,0 +1,99 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zobrist keys for one board size, plus the square mappings for the 8 rotations and
+ * reflections of a square board.  BackEnd keeps one hash per symmetry up to date as marks
+ * are placed and cleared, so the canonical (smallest) hash is available at any time.
+ * Keys come from a fixed seed so hashes are the same from run to run.
+ */
+class Zobrist {
+
+    public static final int MAX_SYMMETRIES = 8;
+
+    // xor-ed into a key when O is to move
+    public static final long SIDE_TO_MOVE = 0x9E3779B97F4A7C15L;
+
+    private static final long SEED = 0x5DEECE66DL;
+    private static final ConcurrentHashMap<Integer, Zobrist> CACHE = new ConcurrentHashMap<>();
+
+    private final int numRows;
+    private final int numColumns;
+    private final int symmetryCount;
+    private final long[] keys;
+    private final int[][] symmetries;
+    private final int[][] inverses;
+
+    private Zobrist(int numRows, int numColumns) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        int cells = numRows * numColumns;
+
+        SplittableRandom random = new SplittableRandom(SEED ^ ((long) numRows << 16) ^ numColumns);
+        keys = new long[cells * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+
+        // a rectangle only keeps the symmetries that map it onto itself
+        symmetryCount = numRows == numColumns ? MAX_SYMMETRIES : 4;
+        symmetries = new int[symmetryCount][cells];
+        inverses = new int[symmetryCount][cells];
+        int n = 0;
+        for (int s = 0; s < MAX_SYMMETRIES; s++) {
+            boolean transpose = s >= 4;
+            if (transpose && numRows != numColumns) {
+                continue;
+            }
+            boolean flipRows = (s & 1) != 0;
+            boolean flipColumns = (s & 2) != 0;
+            for (int cell = 0; cell < cells; cell++) {
+                int row = cell / numColumns;
+                int col = cell % numColumns;
+                if (flipRows) {
+                    row = numRows - 1 - row;
+                }
+                if (flipColumns) {
+                    col = numColumns - 1 - col;
+                }
+                int mapped = transpose ? col * numColumns + row : row * numColumns + col;
+                symmetries[n][cell] = mapped;
+                inverses[n][mapped] = cell;
+            }
+            n++;
+        }
+    }
+
+    public static Zobrist forSize(int numRows, int numColumns) {
+        return CACHE.computeIfAbsent((numRows << 16) | numColumns, k -> new Zobrist(numRows, numColumns));
+    }
+
+    public int getSymmetryCount() {
+        return symmetryCount;
+    }
+
+    // key for mark on cell as seen through the given symmetry
+    public long key(int symmetry, int cell, char mark) {
+        return keys[symmetries[symmetry][cell] * 2 + (mark == 'x' ? 0 : 1)];
+    }
+
+    // maps a square into the frame of the given symmetry
+    public int map(int symmetry, int cell) {
+        return symmetries[symmetry][cell];
+    }
+
+    // maps a square from the frame of the given symmetry back to the board
+    public int unmap(int symmetry, int cell) {
+        return inverses[symmetry][cell];
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+}
@@ -0,0 +1,74 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The move path (choose a move, make it, check the result, take it back) must not allocate,
+ * checked with the JVM's per-thread allocation counter.  Runs enough moves first for the
+ * JIT to compile the loop, since interpreted code can allocate where compiled code doesn't.
+ */
+class AllocationTest {
+
+    private static final int WARMUP_MOVES = 2_000_000;
+    private static final int MEASURED_MOVES = 4_000_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int[] played = new int[64];
+
+    @Test
+    void charBoardMovesAllocateNothing() {
+        assertNoAllocation(new BackEnd(5, 5, 4));
+    }
+
+    @Test
+    void bitBoardMovesAllocateNothing() {
+        assertNoAllocation(new BitBoard(5, 5, 4));
+    }
+
+    @Test
+    void largeBitBoardMovesAllocateNothing() {
+        assertNoAllocation(new BitBoard(8, 8, 5));
+    }
+
+    private void assertNoAllocation(BackEnd board) {
+        Player player = new RandomPlayer(new SplittableRandom(1));
+        board.setPlayer('x');
+        playMoves(board, player, WARMUP_MOVES);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long moves = playMoves(board, player, MEASURED_MOVES);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertEquals(0, allocated, allocated + " bytes allocated over " + moves + " moves");
+    }
+
+    // random games from the empty board, each taken back move by move once it ends
+    private long playMoves(BackEnd board, Player player, int moves) {
+        int columns = board.getNumColumns();
+        long count = 0;
+        while (count < moves) {
+            int ply = 0;
+            while (true) {
+                int cell = player.selectMove(board);
+                board.placeMark(cell / columns, cell % columns);
+                played[ply++] = cell;
+                count++;
+                if (board.checkForWin() || board.isBoardFull()) {
+                    break;
+                }
+                board.changePlayer();
+            }
+            while (ply > 0) {
+                int cell = played[--ply];
+                board.clearMark(cell / columns, cell % columns);
+            }
+            board.setPlayer('x');
+        }
+        return count;
+    }
+}
@@ -0,0 +1,145 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Elo arithmetic, the maximum likelihood ratings and the sequential test, on results whose
+ * answers are known.
+ */
+class EloTest {
+
+    @Test
+    void scoresAndDifferences() {
+        assertEquals(0.5, Elo.expectedScore(0), 1e-12);
+        assertEquals(10.0 / 11, Elo.expectedScore(400), 1e-12);
+        assertEquals(400, Elo.fromScore(10.0 / 11), 1e-9);
+        assertEquals(-400, Elo.fromScore(1.0 / 11), 1e-9);
+        // a perfect score is capped instead of infinite
+        assertEquals(Elo.fromScore(0.999), Elo.fromScore(1), 1e-9);
+
+        // 60 wins, 20 draws, 20 losses is a score of 0.7
+        double[] elo = Elo.difference(60, 20, 20);
+        assertEquals(Elo.fromScore(0.7), elo[0], 1e-9);
+        double margin = 1.96 * Math.sqrt(Elo.variance(60, 20, 20) / 100);
+        assertEquals(Elo.fromScore(0.7 - margin), elo[1], 1e-9);
+        assertEquals(Elo.fromScore(0.7 + margin), elo[2], 1e-9);
+        assertEquals((60 * 0.09 + 20 * 0.04 + 20 * 0.49) / 100, Elo.variance(60, 20, 20), 1e-12);
+    }
+
+    @Test
+    void twoPlayersIncludingTheExtraDraw() {
+        // 75 points of 100 plus the extra draw, the odds are 75.5 to 25.5
+        double[] ratings = Elo.ratings(new double[][] {{0, 75}, {25, 0}}, new long[][] {{0, 100}, {100, 0}});
+        double expected = 400 * Math.log10(75.5 / 25.5);
+        assertEquals(expected / 2, ratings[0], 1e-6);
+        assertEquals(-expected / 2, ratings[1], 1e-6);
+    }
+
+    @Test
+    void recoversRatingsFromExpectedScores() {
+        double[] truth = {-250, -50, 100, 200};
+        int n = truth.length;
+        long games = 10_000_000;
+        double[][] points = new double[n][n];
+        long[][] played = new long[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    played[i][j] = games;
+                    points[i][j] = games * Elo.expectedScore(truth[i] - truth[j]);
+                }
+            }
+        }
+        double[] ratings = Elo.ratings(points, played);
+        double mean = 0;
+        for (int i = 0; i < n; i++) {
+            assertEquals(truth[i], ratings[i], 0.1);
+            mean += ratings[i];
+        }
+        assertEquals(0, mean, 1e-6);
+
+        // margins shrink with the square root of the games
+        double[] margins = Elo.ratingMargins(ratings, played);
+        long[][] moreGames = new long[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                moreGames[i][j] = played[i][j] * 4;
+            }
+        }
+        double[] tighter = Elo.ratingMargins(ratings, moreGames);
+        for (int i = 0; i < n; i++) {
+            assertEquals(margins[i] / 2, tighter[i], margins[i] * 1e-3);
+        }
+    }
+
+    @Test
+    void playersWhoNeverPlayedHaveNoMargin() {
+        double[] ratings = Elo.ratings(new double[2][2], new long[2][2]);
+        assertEquals(0, ratings[0], 1e-12);
+        assertEquals(Double.POSITIVE_INFINITY, Elo.ratingMargins(ratings, new long[2][2])[0]);
+    }
+
+    @Test
+    void sprtBounds() {
+        Sprt sprt = new Sprt(-50, 50, 0.05, 0.05);
+        assertEquals(-Math.log(19), sprt.getLowerBound(), 1e-12);
+        assertEquals(Math.log(19), sprt.getUpperBound(), 1e-12);
+        Sprt lopsided = new Sprt(0, 10, 0.05, 0.1);
+        assertEquals(Math.log(0.1 / 0.95), lopsided.getLowerBound(), 1e-12);
+        assertEquals(Math.log(0.9 / 0.05), lopsided.getUpperBound(), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(10, 10, 0.05, 0.05));
+    }
+
+    @Test
+    void sprtLogLikelihoodRatio() {
+        Sprt sprt = new Sprt(-50, 50, 0.05, 0.05);
+        assertEquals(0, sprt.logLikelihoodRatio(0, 0, 0));
+        assertEquals(0, sprt.logLikelihoodRatio(30, 40, 30), 1e-12);
+        assertEquals(-sprt.logLikelihoodRatio(50, 20, 30), sprt.logLikelihoodRatio(30, 20, 50), 1e-12);
+
+        // by hand, with the extra win and loss: 51 wins, 20 draws, 31 losses
+        double s0 = Elo.expectedScore(-50);
+        double s1 = Elo.expectedScore(50);
+        double score = 61.0 / 102;
+        double expected = 102 * (s1 - s0) * (2 * score - s0 - s1) / (2 * Elo.variance(51, 20, 31));
+        assertEquals(expected, sprt.logLikelihoodRatio(50, 20, 30), 1e-9);
+    }
+
+    @Test
+    void sprtDecisions() {
+        Sprt sprt = new Sprt(-50, 50, 0.05, 0.05);
+        assertEquals(Sprt.CONTINUE, sprt.status(0, 0, 0));
+        assertEquals(Sprt.CONTINUE, sprt.status(2, 0, 0));
+        assertEquals(Sprt.CONTINUE, sprt.status(1, 9, 0));
+        assertEquals(Sprt.ACCEPT_ELO1, sprt.status(10, 0, 0));
+        assertEquals(Sprt.ACCEPT_ELO0, sprt.status(0, 0, 10));
+        assertEquals(Sprt.ACCEPT_ELO1, sprt.status(70, 0, 30));
+        assertEquals(Sprt.CONTINUE, sprt.status(55, 0, 45));
+        // all draws settle as even once the interval fits inside -50 to +50
+        assertEquals(Sprt.CONTINUE, sprt.status(0, 10, 0));
+        assertEquals(Sprt.INDIFFERENT, sprt.status(0, 60, 0));
+        assertEquals(Sprt.INDIFFERENT, sprt.status(500, 1000, 500));
+    }
+
+    @Test
+    void tournamentStopsSettledPairingsEarly() throws InterruptedException {
+        Tournament tournament = new Tournament(3, 3, 2, 1000, 1, 42);
+        tournament.addPlayer("random", RandomPlayer::new);
+        tournament.addPlayer("search", random -> new AlphaBetaSearch(1000, new TranspositionTable(12)));
+        try (tournament) {
+            tournament.runRoundRobin();
+        }
+        Tournament.Pairing pairing = tournament.getPairings().get(0);
+        assertEquals(Sprt.ACCEPT_ELO0, pairing.getStatus());
+        assertTrue(pairing.getGames() < 100, pairing.getGames() + " games");
+        assertEquals(0, pairing.getGames() % 2);
+        assertEquals(0, pairing.getWins());
+        double[] ratings = tournament.getRatings();
+        assertTrue(ratings[1] > ratings[0]);
+        assertTrue(tournament.report().contains("random vs search"));
+    }
+}
@@ -0,0 +1,197 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Records written by GameLogWriter come back unchanged from GameLogReader, across board
+ * sizes and across the boundaries of both buffers, and damaged records are refused.
+ */
+class GameLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsRoundTripAcrossSizes() throws IOException {
+        Path log = dir.resolve("games.log");
+        SplittableRandom random = new SplittableRandom(5);
+        List<GameRecord> written = new ArrayList<>();
+        // enough records that many straddle the 64 KB buffers, with sizes mixed in one file
+        try (GameLogWriter writer = new GameLogWriter(log)) {
+            for (int i = 0; i < 20_000; i++) {
+                GameRecord record = randomGame(3 + random.nextInt(6), random);
+                writer.append(record);
+                written.add(record);
+            }
+            assertEquals(written.size(), writer.getRecordsWritten());
+        }
+        assertTrue(Files.size(log) > 4 * 64 * 1024);
+        assertReads(log, written);
+    }
+
+    @Test
+    void appendingKeepsOneHeader() throws IOException {
+        Path log = dir.resolve("games.log");
+        SplittableRandom random = new SplittableRandom(6);
+        List<GameRecord> written = new ArrayList<>();
+        for (int session = 0; session < 3; session++) {
+            try (GameLogWriter writer = new GameLogWriter(log)) {
+                for (int i = 0; i < 3000; i++) {
+                    GameRecord record = randomGame(8, random);
+                    writer.append(record);
+                    written.add(record);
+                }
+            }
+        }
+        assertReads(log, written);
+    }
+
+    @Test
+    void emptyAndFullRecords() throws IOException {
+        Path log = dir.resolve("games.log");
+        GameRecord empty = new GameRecord();
+        empty.set(3, 3, Scoreboard.TIE, new int[0], 0);
+        GameRecord full = new GameRecord();
+        int[] moves = new int[64];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = 63 - i;
+        }
+        full.set(8, 8, Scoreboard.TIE, moves, 64);
+        // the result is whatever these moves reach, moves after a win don't change it
+        full.set(8, 8, full.replay(new BackEnd(8, 8, 8)), moves, 64);
+        try (GameLogWriter writer = new GameLogWriter(log)) {
+            writer.append(empty);
+            writer.append(full);
+        }
+        assertReads(log, List.of(empty, full));
+    }
+
+    @Test
+    void damagedRecordsAreRefused() throws IOException {
+        // move count past the board
+        assertCorrupt(new byte[] {3, 3, 0, 100});
+        // move count negative as a signed byte
+        assertCorrupt(new byte[] {3, 3, 0, (byte) 200});
+        assertCorrupt(new byte[] {0, 3, 0, 0});
+        assertCorrupt(new byte[] {-4, 3, 0, 0});
+        assertCorrupt(new byte[] {9, 3, 0, 0});
+        assertCorrupt(new byte[] {3, 4, 0, 0});
+        assertCorrupt(new byte[] {3, 0, 0, 0});
+        assertCorrupt(new byte[] {3, 3, 7, 0});
+        // square 15 on a 3x3 board
+        assertCorrupt(new byte[] {3, 3, 0, 1, 15});
+
+        Path truncated = writeLog(new byte[] {3, 3, 0, 9, 1});
+        try (GameLogReader reader = new GameLogReader(truncated)) {
+            assertThrows(EOFException.class, () -> reader.next(new GameRecord()));
+        }
+        Path notALog = dir.resolve("other");
+        Files.write(notALog, new byte[] {1, 2, 3, 4, 5, 6});
+        assertThrows(IOException.class, () -> new GameLogReader(notALog));
+    }
+
+    @Test
+    void writerRefusesWhatTheReaderWould() throws IOException {
+        Path log = dir.resolve("games.log");
+        int[] moves = {0, 1, 2, 3, 4};
+        try (GameLogWriter writer = new GameLogWriter(log)) {
+            assertRefused(writer, 2, 2, Scoreboard.X_WINS, moves, 3);
+            assertRefused(writer, 9, 3, Scoreboard.X_WINS, moves, 5);
+            assertRefused(writer, 3, 4, Scoreboard.X_WINS, moves, 5);
+            assertRefused(writer, 3, 0, Scoreboard.X_WINS, moves, 5);
+            assertRefused(writer, 3, 3, 7, moves, 5);
+            assertRefused(writer, 3, 3, -1, moves, 5);
+            assertRefused(writer, 3, 3, Scoreboard.TIE, moves, -1);
+            assertRefused(writer, 3, 3, Scoreboard.TIE, moves, 6);
+            assertRefused(writer, 3, 3, Scoreboard.TIE, new int[] {0, 9}, 2);
+            assertRefused(writer, 3, 3, Scoreboard.TIE, new int[] {-1}, 1);
+            assertRefused(writer, 65536, 3, Scoreboard.TIE, moves, 0);
+            // refused records leave nothing behind, the good one after them still reads
+            writer.append(3, 3, Scoreboard.X_WINS, new int[] {0, 3, 1, 4, 2}, 5);
+            assertEquals(1, writer.getRecordsWritten());
+        }
+        GameRecord good = new GameRecord();
+        good.set(3, 3, Scoreboard.X_WINS, new int[] {0, 3, 1, 4, 2}, 5);
+        assertReads(log, List.of(good));
+    }
+
+    private static void assertRefused(GameLogWriter writer, int size, int winLength, int result, int[] moves,
+            int moveCount) {
+        assertThrows(IllegalArgumentException.class, () -> writer.append(size, winLength, result, moves, moveCount),
+                size + " " + winLength + " " + result + " " + moveCount);
+    }
+
+    private void assertCorrupt(byte[] record) throws IOException {
+        try (GameLogReader reader = new GameLogReader(writeLog(record))) {
+            IOException e = assertThrows(IOException.class, () -> reader.next(new GameRecord()));
+            assertEquals("corrupt record", e.getMessage(), Arrays.toString(record));
+        }
+    }
+
+    // a log header followed by raw record bytes
+    private Path writeLog(byte[] record) throws IOException {
+        Path log = Files.createTempFile(dir, "damaged", ".log");
+        ByteBuffer bytes = ByteBuffer.allocate(GameLogWriter.HEADER_BYTES + record.length);
+        bytes.putInt(GameLogWriter.MAGIC).put((byte) GameLogWriter.VERSION).put(record);
+        Files.write(log, bytes.array());
+        return log;
+    }
+
+    private static void assertReads(Path log, List<GameRecord> expected) throws IOException {
+        GameRecord record = new GameRecord();
+        BackEnd board = new BackEnd(3, 3);
+        try (GameLogReader reader = new GameLogReader(log)) {
+            for (GameRecord game : expected) {
+                assertTrue(reader.next(record));
+                assertEquals(game.getSize(), record.getSize());
+                assertEquals(game.getWinLength(), record.getWinLength());
+                assertEquals(game.getResult(), record.getResult());
+                assertEquals(game.getMoveCount(), record.getMoveCount());
+                for (int i = 0; i < game.getMoveCount(); i++) {
+                    assertEquals(game.getMove(i), record.getMove(i));
+                }
+                board = new BackEnd(record.getSize(), record.getSize(), record.getWinLength());
+                assertEquals(game.getResult(), record.replay(board));
+            }
+            assertFalse(reader.next(record));
+        }
+    }
+
+    // a random game played out to the end, so its result is the one replay reaches
+    private static GameRecord randomGame(int size, SplittableRandom random) {
+        int winLength = 3 + random.nextInt(size - 2);
+        BackEnd board = new BackEnd(size, size, winLength);
+        board.setPlayer('x');
+        int[] moves = new int[size * size];
+        int count = 0;
+        int result = Scoreboard.TIE;
+        while (!board.isBoardFull()) {
+            int cell = board.randomEmptyCell(random);
+            board.placeMark(cell / size, cell % size);
+            moves[count++] = cell;
+            if (board.checkForWin()) {
+                result = board.getCurrentPlayerMark() == 'x' ? Scoreboard.X_WINS : Scoreboard.O_WINS;
+                break;
+            }
+            board.changePlayer();
+        }
+        GameRecord record = new GameRecord();
+        record.set(size, winLength, result, moves, count);
+        return record;
+    }
+}
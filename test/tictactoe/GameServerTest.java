@@ -0,0 +1,124 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Names on the server's scoreboard: unnamed sessions share one row however many connect,
+ * and clients can't play under the engine's name or the shared one.
+ */
+class GameServerTest {
+
+    private GameServer server;
+    private Thread serving;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new GameServer(0, 2, 5);
+        server.start();
+        serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, "server-test");
+        serving.setDaemon(true);
+        serving.start();
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        server.stop();
+        serving.join(5000);
+    }
+
+    @Test
+    void unnamedSessionsShareOneRow() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            try (Client client = new Client(server.getPort())) {
+                assertEquals("OK", client.request("NEW 3 3"));
+                client.playOut();
+            }
+        }
+        assertEquals(List.of("anonymous", "computer"), names(server.getScoreboard().publish()));
+        Scoreboard.Entry anonymous = server.getScoreboard().publish().leaders.stream()
+                .filter(entry -> entry.name.equals("anonymous")).findFirst().get();
+        assertEquals(5, anonymous.wins + anonymous.losses + anonymous.ties);
+    }
+
+    @Test
+    void reservedNamesAreRefused() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("ERR reserved name", client.request("NEW 3 3 computer"));
+            assertEquals("ERR reserved name", client.request("NEW 3 3 Computer"));
+            assertEquals("ERR reserved name", client.request("NEW 3 3 anonymous"));
+            assertEquals("OK", client.request("NEW 3 3 alice"));
+            client.playOut();
+        }
+        assertEquals(List.of("alice", "computer"), names(server.getScoreboard().publish()));
+    }
+
+    private static List<String> names(Scoreboard.Snapshot snapshot) {
+        List<String> names = new ArrayList<>();
+        for (Scoreboard.Entry entry : snapshot.leaders) {
+            names.add(entry.name);
+        }
+        names.sort(null);
+        return names;
+    }
+
+    private static final class Client implements AutoCloseable {
+        final Socket socket;
+        final BufferedReader in;
+        final PrintWriter out;
+
+        Client(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+        }
+
+        String request(String line) throws IOException {
+            out.println(line);
+            return in.readLine();
+        }
+
+        // plays X in the first empty square until the game ends
+        void playOut() throws IOException {
+            boolean[] taken = new boolean[9];
+            for (int cell = 0; cell < 9; cell++) {
+                if (taken[cell]) {
+                    continue;
+                }
+                taken[cell] = true;
+                String reply = request("MOVE " + cell / 3 + " " + cell % 3);
+                String[] parts = reply.split(" ");
+                if (parts[0].equals("O")) {
+                    taken[Integer.parseInt(parts[1]) * 3 + Integer.parseInt(parts[2])] = true;
+                }
+                if (reply.endsWith("WINS") || reply.endsWith("TIE")) {
+                    return;
+                }
+                assertTrue(parts[0].equals("O"), reply);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The built in strategy behind computerPlaceMark.  Each line check places the mark itself,
+ * and calling one twice used to put down a second mark in the same turn.
+ */
+class HeuristicTest {
+
+    @Test
+    void completesOneOfTwoLines() {
+        BackEnd board = position(3, 3, "oo-", "x-x", "oo-");
+        board.setPlayer('o');
+        board.computerPlaceMark();
+        assertEquals(7, board.getMarkCount());
+        assertEquals('o', board.getBoard()[0][2]);
+        assertEquals('-', board.getBoard()[2][2]);
+    }
+
+    @Test
+    void blocksOneOfTwoLines() {
+        BackEnd board = position(3, 3, "xx-", "o--", "xx-");
+        board.setPlayer('o');
+        board.computerPlaceMark();
+        assertEquals(6, board.getMarkCount());
+        assertEquals('o', board.getBoard()[0][2]);
+        assertEquals('-', board.getBoard()[2][2]);
+    }
+
+    @Test
+    void playsForWhicheverSideIsToMove() {
+        BackEnd board = position(3, 3, "x-x", "oo-", "---");
+        board.setPlayer('x');
+        board.heuristicPlaceMark(new SplittableRandom(1));
+        assertEquals('x', board.getBoard()[0][1]);
+        assertEquals(5, board.getMarkCount());
+    }
+
+    @Test
+    void everyTurnPlacesExactlyOneMark() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int size = 3; size <= 6; size++) {
+            for (int game = 0; game < 500; game++) {
+                BackEnd board = new BackEnd(size, size, Math.min(size, 4));
+                board.setPlayer('x');
+                while (!board.checkForWin() && !board.isBoardFull()) {
+                    int before = board.getMarkCount();
+                    // a few random moves mixed in reach positions the heuristic alone never plays
+                    if (random.nextInt(4) == 0) {
+                        int cell = board.randomEmptyCell(random);
+                        board.placeMark(cell / size, cell % size);
+                    } else {
+                        board.heuristicPlaceMark(random);
+                    }
+                    assertEquals(before + 1, board.getMarkCount());
+                    if (!board.checkForWin()) {
+                        board.changePlayer();
+                    }
+                }
+            }
+        }
+    }
+
+    private static BackEnd position(int size, int winLength, String... rows) {
+        BackEnd board = new BackEnd(size, size, winLength);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                char mark = rows[row].charAt(col);
+                if (mark != '-') {
+                    board.setPlayer(mark);
+                    board.placeMark(row, col);
+                }
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,157 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Undo and redo mixed with placeMark and clearMark, including clearing a mark other than
+ * the last one.  After every step the board must match one rebuilt from scratch with the
+ * moves that are still on it: squares, mark count, side to move, win state, last move and
+ * the hash under every symmetry.
+ */
+class HistoryTest {
+
+    private static final int SEQUENCES = 300;
+    private static final int STEPS = 150;
+
+    @Test
+    void charBoardMatchesRebuild() {
+        for (int size = 3; size <= 6; size++) {
+            check(new BackEnd(size, size, Math.min(size, 4)), size * 31L);
+        }
+        check(new BackEnd(3, 5, 3), 1);
+    }
+
+    @Test
+    void bitBoardMatchesRebuild() {
+        for (int size = 3; size <= 8; size++) {
+            check(new BitBoard(size, size, Math.min(size, 4)), size * 17L);
+        }
+    }
+
+    @Test
+    void undoingEverythingRestoresTheEmptyBoard() {
+        BackEnd board = new BitBoard(4, 4, 3);
+        board.setPlayer('x');
+        SplittableRandom random = new SplittableRandom(3);
+        while (!board.checkForWin() && !board.isBoardFull()) {
+            int cell = board.randomEmptyCell(random);
+            board.placeMark(cell / 4, cell % 4);
+            if (!board.checkForWin()) {
+                board.changePlayer();
+            }
+        }
+        int moves = board.getMarkCount();
+        for (int i = 0; i < moves; i++) {
+            assertEquals(true, board.undo());
+        }
+        assertEquals(false, board.undo());
+        assertEquals(0, board.getMarkCount());
+        assertEquals('x', board.getCurrentPlayerMark());
+        for (int s = 0; s < board.getZobrist().getSymmetryCount(); s++) {
+            assertEquals(0, board.getHash(s));
+        }
+        for (int i = 0; i < moves; i++) {
+            assertEquals(true, board.redo());
+        }
+        assertEquals(false, board.redo());
+        assertEquals(moves, board.getMarkCount());
+    }
+
+    private static void check(BackEnd board, long seed) {
+        int rows = board.getNumRows();
+        int columns = board.getNumColumns();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int sequence = 0; sequence < SEQUENCES; sequence++) {
+            board.initializeBoard(rows, columns);
+            board.setPlayer('x');
+            // what should be on the board, oldest first, and what can be redone, newest last
+            List<int[]> played = new ArrayList<>();
+            List<int[]> undone = new ArrayList<>();
+            char toMove = 'x';
+            for (int step = 0; step < STEPS; step++) {
+                boolean over = board.checkForWin() || board.isBoardFull();
+                int choice = random.nextInt(4);
+                String action;
+                if (choice == 0 && !over) {
+                    int cell = board.randomEmptyCell(random);
+                    action = "place " + cell;
+                    board.placeMark(cell / columns, cell % columns);
+                    played.add(new int[] {cell, toMove});
+                    undone.clear();
+                    if (!board.checkForWin() && !board.isBoardFull()) {
+                        board.changePlayer();
+                        toMove = other(toMove);
+                    }
+                } else if (choice == 1 && !board.checkForWin() && !played.isEmpty()) {
+                    // any mark, not only the last one, goes through the slow path of forget
+                    int[] move = played.remove(random.nextInt(played.size()));
+                    action = "clear " + move[0];
+                    board.clearMark(move[0] / columns, move[0] % columns);
+                    undone.clear();
+                } else if (choice == 2) {
+                    action = "undo";
+                    assertEquals(!played.isEmpty(), board.undo(), action);
+                    if (!played.isEmpty()) {
+                        int[] move = played.remove(played.size() - 1);
+                        undone.add(move);
+                        toMove = (char) move[1];
+                    }
+                } else {
+                    action = "redo";
+                    assertEquals(!undone.isEmpty(), board.redo(), action);
+                    if (!undone.isEmpty()) {
+                        int[] move = undone.remove(undone.size() - 1);
+                        played.add(move);
+                        toMove = (char) move[1];
+                        if (!board.checkForWin() && !board.isBoardFull()) {
+                            toMove = other(toMove);
+                        }
+                    }
+                }
+                assertMatches(board, rebuild(board, played, toMove), undone.size(), action);
+            }
+        }
+    }
+
+    private static BackEnd rebuild(BackEnd like, List<int[]> played, char toMove) {
+        BackEnd board = like.copy();
+        int columns = board.getNumColumns();
+        board.initializeBoard(board.getNumRows(), columns);
+        for (int[] move : played) {
+            board.setPlayer((char) move[1]);
+            board.placeMark(move[0] / columns, move[0] % columns);
+        }
+        board.setPlayer(toMove);
+        return board;
+    }
+
+    private static void assertMatches(BackEnd board, BackEnd expected, int redoable, String action) {
+        for (int row = 0; row < board.getNumRows(); row++) {
+            assertEquals(new String(expected.getBoard()[row]), new String(board.getBoard()[row]), action);
+        }
+        assertEquals(expected.getMarkCount(), board.getMarkCount(), action);
+        assertEquals(expected.getEmptyCount(), board.getEmptyCount(), action);
+        assertEquals(expected.getCurrentPlayerMark(), board.getCurrentPlayerMark(), action);
+        assertEquals(expected.checkForWin(), board.checkForWin(), action);
+        assertEquals(expected.getLastMove(), board.getLastMove(), action);
+        assertEquals(expected.getHistoryLength(), board.getHistoryLength(), action);
+        for (int i = 0; i < expected.getHistoryLength(); i++) {
+            assertEquals(expected.getHistoryMove(i), board.getHistoryMove(i), action);
+        }
+        for (int s = 0; s < board.getZobrist().getSymmetryCount(); s++) {
+            assertEquals(expected.getHash(s), board.getHash(s), action + ", symmetry " + s);
+        }
+        assertEquals(expected.getCanonicalHash(), board.getCanonicalHash(), action);
+        assertEquals(redoable > 0, board.canRedo(), action);
+        assertEquals(expected.canUndo(), board.canUndo(), action);
+    }
+
+    private static char other(char mark) {
+        return mark == 'x' ? 'o' : 'x';
+    }
+}
@@ -0,0 +1,47 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The games per second rate comes from the sampler alone: reading it any number of times
+ * gives the same value until the next sample.
+ */
+class MetricsTest {
+
+    @Test
+    void readingTheRateChangesNothing() throws InterruptedException {
+        Metrics metrics = new Metrics();
+        assertEquals(0, metrics.getGamesPerSecond());
+        metrics.recordGames(1000);
+        Thread.sleep(20);
+        metrics.sample();
+        double rate = metrics.getGamesPerSecond();
+        assertTrue(rate > 0, "rate " + rate);
+        Thread.sleep(20);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(rate, metrics.getGamesPerSecond());
+        }
+        metrics.snapshot();
+        assertEquals(rate, metrics.getGamesPerSecond());
+    }
+
+    @Test
+    void eachSampleCoversTheGamesSinceThePreviousOne() throws InterruptedException {
+        Metrics metrics = new Metrics();
+        metrics.recordGames(1000);
+        metrics.sample();
+        Thread.sleep(20);
+        metrics.sample();
+        // nothing played since the first sample
+        assertEquals(0, metrics.getGamesPerSecond());
+        metrics.recordGames(10);
+        metrics.reset();
+        assertEquals(0, metrics.getGamesPerSecond());
+        Thread.sleep(20);
+        metrics.sample();
+        assertEquals(0, metrics.getGamesPerSecond());
+    }
+}
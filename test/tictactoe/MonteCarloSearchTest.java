@@ -0,0 +1,101 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Seeding of the MCTS player: with a playout budget and no time budget the same generator
+ * must give the same moves, on its own and inside a fixed-seed SelfPlay run.  Closing it
+ * ends its worker threads.
+ */
+class MonteCarloSearchTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameSeedPlaysTheSameGame() {
+        assertArrayEquals(game(42), game(42));
+    }
+
+    @Test
+    void takesAnImmediateWin() {
+        BackEnd board = new BackEnd(3, 3, 3);
+        board.setPlayer('x');
+        board.placeMark(0, 0);
+        board.placeMark(0, 1);
+        board.setPlayer('o');
+        board.placeMark(1, 0);
+        board.placeMark(1, 1);
+        board.setPlayer('x');
+        MonteCarloSearch search = new MonteCarloSearch(0, 2000, 1, 1L << 20, new SplittableRandom(1));
+        assertEquals(2, search.selectMove(board));
+    }
+
+    @Test
+    void closeStopsTheWorkers() throws InterruptedException {
+        int before = workerThreads();
+        MonteCarloSearch search = new MonteCarloSearch(0, 2000, 3, 1L << 20, new SplittableRandom(1));
+        BackEnd board = new BackEnd(4, 4, 3);
+        board.setPlayer('x');
+        search.selectMove(board);
+        assertEquals(before + 3, workerThreads());
+        search.close();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (workerThreads() > before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(before, workerThreads());
+    }
+
+    @Test
+    void fixedSeedSelfPlayIsReproducible() throws Exception {
+        byte[] first = selfPlayLog(dir.resolve("first"));
+        byte[] second = selfPlayLog(dir.resolve("second"));
+        assertArrayEquals(first, second);
+    }
+
+    // moves of one 5x5 game between two searches seeded from the same generator
+    private static int[] game(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Player x = new MonteCarloSearch(0, 300, 1, 1L << 20, random.split());
+        Player o = new MonteCarloSearch(0, 300, 1, 1L << 20, random.split());
+        BackEnd board = new BackEnd(5, 5, 4);
+        board.setPlayer('x');
+        int[] moves = new int[25];
+        int ply = 0;
+        while (!board.checkForWin() && !board.isBoardFull()) {
+            int cell = (board.getCurrentPlayerMark() == 'x' ? x : o).selectMove(board);
+            board.placeMark(cell / 5, cell % 5);
+            moves[ply++] = cell;
+            if (!board.checkForWin()) {
+                board.changePlayer();
+            }
+        }
+        return moves;
+    }
+
+    private static int workerThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("mcts-worker") && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static byte[] selfPlayLog(Path log) throws Exception {
+        SelfPlay selfPlay = new SelfPlay(4, 4, 1, SelfPlay.parsePlayer("mcts:0:200"),
+                SelfPlay.parsePlayer("random"), 2, 7);
+        selfPlay.setLog(log);
+        selfPlay.run(20);
+        return Files.readAllBytes(SelfPlay.workerLog(log, 0));
+    }
+}
@@ -0,0 +1,188 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Bounds, least recently used eviction, saving and loading, that lookups and stores
+ * allocate nothing, and the scores CachingPlayer keeps with its moves.
+ */
+class MoveCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storesAndCounts() {
+        MoveCache cache = new MoveCache(1000);
+        assertEquals(MoveCache.NO_ENTRY, cache.get(42));
+        cache.put(42, 7);
+        cache.put(0, 8);
+        assertEquals(7, cache.get(42));
+        assertEquals(8, cache.get(0));
+        cache.put(42, 9);
+        assertEquals(9, cache.get(42));
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(MoveCache.NO_ENTRY, cache.get(42));
+    }
+
+    @Test
+    void staysWithinItsSize() {
+        MoveCache cache = new MoveCache(1600);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            cache.put(random.nextLong(), i);
+        }
+        assertEquals(1600, cache.size());
+        assertEquals(100_000 - 1600, cache.getEvictions());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsed() {
+        // 16 segments of one 8 way bucket each, so keys of one segment share a bucket
+        MoveCache cache = new MoveCache(128);
+        List<Long> keys = keysInOneSegment(9);
+        for (int i = 0; i < 8; i++) {
+            cache.put(keys.get(i), i);
+        }
+        assertEquals(0, cache.get(keys.get(0)));
+        cache.put(keys.get(8), 8);
+        assertEquals(0, cache.get(keys.get(0)));
+        assertEquals(MoveCache.NO_ENTRY, cache.get(keys.get(1)));
+        for (int i = 2; i < 9; i++) {
+            assertEquals(i, cache.get(keys.get(i)));
+        }
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void savesAndLoadsInRecencyOrder() throws IOException {
+        MoveCache cache = new MoveCache(128);
+        List<Long> keys = keysInOneSegment(8);
+        for (int i = 0; i < 8; i++) {
+            cache.put(keys.get(i), i);
+        }
+        // key 0 becomes the most recently used
+        cache.get(keys.get(0));
+        Path file = dir.resolve("cache");
+        cache.save(file);
+
+        MoveCache loaded = new MoveCache(128);
+        assertEquals(8, loaded.load(file));
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, loaded.get(keys.get(i)));
+        }
+
+        // a cache with room for 4 per segment keeps the 4 used last
+        MoveCache smaller = new MoveCache(64);
+        smaller.load(file);
+        assertEquals(4, smaller.size());
+        assertEquals(0, smaller.get(keys.get(0)));
+        for (int i = 5; i < 8; i++) {
+            assertEquals(i, smaller.get(keys.get(i)));
+        }
+    }
+
+    @Test
+    void lookupsAndStoresAllocateNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MoveCache cache = new MoveCache(1 << 16);
+        long allocated = 0;
+        for (int round = 0; round < 2; round++) {
+            SplittableRandom random = new SplittableRandom(round);
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 2_000_000; i++) {
+                long key = random.nextInt(1 << 17);
+                if (cache.get(key) == MoveCache.NO_ENTRY) {
+                    cache.put(key, i);
+                }
+            }
+            // the first round warms up the JIT
+            allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        }
+        assertEquals(0, allocated);
+    }
+
+    @Test
+    void threadsShareOneCache() throws InterruptedException {
+        MoveCache cache = new MoveCache(4096);
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    long key = random.nextInt(10_000);
+                    long value = cache.get(key);
+                    if (value == MoveCache.NO_ENTRY) {
+                        cache.put(key, key * 3);
+                    } else if (value != key * 3) {
+                        failure.compareAndSet(null, "key " + key + " has " + value);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(cache.size() <= 4096);
+        assertEquals(800_000, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    void cachesTheScoreOfAnyScoringPlayer() {
+        // a player that isn't one of the searches, like the book or MCTS could be
+        Player scoring = new Player() {
+            @Override
+            public int selectMove(BackEnd board) {
+                return 4;
+            }
+
+            @Override
+            public int getLastScore() {
+                return -1234;
+            }
+        };
+        CachingPlayer player = new CachingPlayer(new MoveCache(100), scoring);
+        BackEnd board = new BackEnd(3, 3, 3);
+        board.setPlayer('x');
+        assertEquals(4, player.selectMove(board));
+        assertFalse(player.wasLastMoveCached());
+        assertEquals(-1234, player.getLastScore());
+        assertEquals(4, player.selectMove(board));
+        assertTrue(player.wasLastMoveCached());
+        assertEquals(-1234, player.getLastScore());
+    }
+
+    // keys the cache puts in the same segment, found the way MoveCache picks segments
+    private static List<Long> keysInOneSegment(int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if ((key * 0x9E3779B97F4A7C15L) >>> 60 == 0) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,54 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The parallel search finds the same forced moves as one thread, and closing it ends its
+ * helper threads, which otherwise live as long as the search does.
+ */
+class ParallelSearchTest {
+
+    @Test
+    void takesAnImmediateWin() {
+        BackEnd board = new BitBoard(4, 4, 3);
+        board.setPlayer('x');
+        board.placeMark(0, 0);
+        board.placeMark(0, 1);
+        board.setPlayer('o');
+        board.placeMark(3, 0);
+        board.placeMark(3, 3);
+        board.setPlayer('x');
+        try (ParallelSearch search = new ParallelSearch(TimeUnit.SECONDS.toMillis(10), 3, new TranspositionTable(14))) {
+            search.setMaxDepth(3);
+            assertEquals(2, search.selectMove(board));
+        }
+    }
+
+    @Test
+    void closeStopsTheHelpers() throws InterruptedException {
+        int before = helperThreads();
+        ParallelSearch search = new ParallelSearch(TimeUnit.SECONDS.toMillis(10), 4, new TranspositionTable(14));
+        search.setMaxDepth(4);
+        search.selectMove(new BitBoard(4, 4, 3));
+        assertEquals(before + 3, helperThreads());
+        search.close();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (helperThreads() > before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(before, helperThreads());
+    }
+
+    private static int helperThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("search-helper") && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
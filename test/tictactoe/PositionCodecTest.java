@@ -0,0 +1,129 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Encoding positions and decoding them again, for ranked boards (up to 39 squares) and
+ * packed ones.
+ */
+class PositionCodecTest {
+
+    @Test
+    void rankedBoardsRoundTrip() {
+        for (int size = 3; size <= 6; size++) {
+            roundTrip(size, size);
+        }
+        roundTrip(3, 5);
+    }
+
+    @Test
+    void packedBoardsRoundTrip() {
+        roundTrip(7, 7);
+        roundTrip(8, 8);
+        roundTrip(5, 9);
+    }
+
+    @Test
+    void emptyBoardIsAllZero() {
+        for (int size = 3; size <= 8; size++) {
+            PositionCodec codec = new PositionCodec(size, size);
+            long[] key = new long[codec.getWords()];
+            key[0] = 42;
+            codec.encode(new BackEnd(size, size).getBoard(), key, 0);
+            assertArrayEquals(new long[codec.getWords()], key);
+        }
+    }
+
+    @Test
+    void rankIsTheBase3Index() {
+        PositionCodec codec = new PositionCodec(3, 3);
+        assertEquals(19683, codec.getRankCount());
+        BackEnd board = new BackEnd(3, 3);
+        board.setPlayer('x');
+        board.placeMark(0, 0);
+        board.setPlayer('o');
+        board.placeMark(2, 2);
+        assertEquals(1 + 2 * 6561, codec.rank(board.getBoard()));
+        assertEquals(3, codec.getPower(1));
+
+        // the last rank is every square o
+        codec.unrank(codec.getRankCount() - 1, board);
+        for (char[] row : board.getBoard()) {
+            assertEquals("ooo", new String(row));
+        }
+    }
+
+    @Test
+    void decodeWorksOutTheSideToMove() {
+        PositionCodec codec = new PositionCodec(4, 4);
+        BackEnd board = new BackEnd(4, 4);
+        board.setPlayer('x');
+        board.placeMark(1, 1);
+        BackEnd decoded = new BackEnd(4, 4);
+        codec.unrank(codec.rank(board.getBoard()), decoded);
+        assertEquals('o', decoded.getCurrentPlayerMark());
+        board.setPlayer('o');
+        board.placeMark(2, 2);
+        codec.unrank(codec.rank(board.getBoard()), decoded);
+        assertEquals('x', decoded.getCurrentPlayerMark());
+        assertEquals(board.getHash(), decoded.getHash());
+    }
+
+    // random positions survive encode and decode, and distinct positions get distinct keys
+    private static void roundTrip(int rows, int columns) {
+        PositionCodec codec = new PositionCodec(rows, columns);
+        assertEquals(rows * columns <= PositionCodec.MAX_RANKED_CELLS, codec.isRanked());
+        SplittableRandom random = new SplittableRandom(rows * 100 + columns);
+        BackEnd board = new BackEnd(rows, columns, 99);
+        BackEnd decoded = new BackEnd(rows, columns, 99);
+        long[] key = new long[codec.getWords() + 2];
+        Map<String, String> seen = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            randomPosition(board, random);
+            codec.encode(board.getBoard(), key, 1);
+            if (codec.isRanked()) {
+                assertEquals(codec.rank(board.getBoard()), key[1]);
+            }
+            for (int cell = 0; cell < rows * columns; cell++) {
+                assertEquals(board.getBoard()[cell / columns][cell % columns], codec.markAt(key, 1, cell));
+            }
+            codec.decode(key, 1, decoded);
+            String text = board.toString();
+            assertEquals(text, decoded.toString());
+            assertEquals(board.getMarkCount(), decoded.getMarkCount());
+            assertEquals(board.getHash(), decoded.getHash());
+
+            String previous = seen.put(keyText(key, codec.getWords()), text);
+            if (previous != null) {
+                assertEquals(previous, text);
+            }
+        }
+        assertNotEquals(1, seen.size());
+    }
+
+    private static String keyText(long[] key, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            text.append(key[1 + w]).append(',');
+        }
+        return text.toString();
+    }
+
+    private static void randomPosition(BackEnd board, SplittableRandom random) {
+        board.initializeBoard(board.getNumRows(), board.getNumColumns());
+        board.setPlayer('x');
+        int moves = random.nextInt(board.getNumRows() * board.getNumColumns() + 1);
+        for (int i = 0; i < moves; i++) {
+            int cell = board.randomEmptyCell(random);
+            board.placeMark(cell / board.getNumColumns(), cell % board.getNumColumns());
+            board.changePlayer();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * PositionSet and PositionMap against java.util collections, the zero key kept outside the
+ * table, growth up to the memory limit and the error past it.
+ */
+class PositionTableTest {
+
+    @Test
+    void setMatchesHashSet() {
+        for (int words : new int[] {1, 2, 3}) {
+            PositionSet set = new PositionSet(words, 64L << 20);
+            Set<List<Long>> expected = new HashSet<>();
+            SplittableRandom random = new SplittableRandom(words);
+            long[] key = new long[words];
+            for (int i = 0; i < 200_000; i++) {
+                randomKey(random, key);
+                assertEquals(expected.add(asList(key)), set.add(key, 0));
+                randomKey(random, key);
+                assertEquals(expected.contains(asList(key)), set.contains(key, 0));
+            }
+            assertEquals(expected.size(), set.size());
+            for (List<Long> k : expected) {
+                for (int w = 0; w < words; w++) {
+                    key[w] = k.get(w);
+                }
+                assertTrue(set.contains(key, 0));
+            }
+        }
+    }
+
+    @Test
+    void zeroKeyIsKeptApart() {
+        PositionSet set = new PositionSet(2, 1 << 20);
+        long[] zero = new long[2];
+        assertFalse(set.contains(zero, 0));
+        assertTrue(set.add(zero, 0));
+        assertFalse(set.add(zero, 0));
+        assertTrue(set.contains(zero, 0));
+        assertEquals(1, set.size());
+        set.clear();
+        assertFalse(set.contains(zero, 0));
+        assertEquals(0, set.size());
+
+        PositionMap map = new PositionMap(1, 1 << 20);
+        assertEquals(PositionMap.NO_VALUE, map.get(0));
+        assertEquals(PositionMap.NO_VALUE, map.put(0, 5));
+        assertEquals(5, map.put(0, 6));
+        assertEquals(6, map.get(0));
+        assertTrue(map.contains(0));
+        assertEquals(1, map.size());
+        long[] visits = new long[1];
+        map.forEach((key, offset, value) -> {
+            assertEquals(0, key[offset]);
+            assertEquals(6, value);
+            visits[0]++;
+        });
+        assertEquals(1, visits[0]);
+    }
+
+    @Test
+    void growsToTheLimitAndThenThrows() {
+        long maxBytes = 64 * 1024;
+        PositionSet set = new PositionSet(1, maxBytes);
+        long maxSize = set.getMaxSize();
+        assertEquals(8192 / 4 * 3, maxSize);
+        for (long key = 1; key <= maxSize; key++) {
+            assertTrue(set.add(key));
+            assertTrue(set.getMemoryBytes() <= maxBytes);
+        }
+        assertEquals(maxSize, set.size());
+        assertEquals(maxBytes, set.getMemoryBytes());
+        // keys already there and the zero key still go in
+        assertFalse(set.add(1));
+        assertTrue(set.add(0));
+        assertThrows(IllegalStateException.class, () -> set.add(maxSize + 1));
+        for (long key = 0; key <= maxSize; key++) {
+            assertTrue(set.contains(key));
+        }
+        assertFalse(set.contains(maxSize + 1));
+    }
+
+    @Test
+    void mapMatchesHashMap() {
+        for (int words : new int[] {1, 2}) {
+            PositionMap map = new PositionMap(words, 64L << 20);
+            Map<List<Long>, Long> expected = new HashMap<>();
+            SplittableRandom random = new SplittableRandom(words + 10);
+            long[] key = new long[words];
+            for (int i = 0; i < 200_000; i++) {
+                randomKey(random, key);
+                long value = random.nextLong();
+                Long previous = expected.put(asList(key), value);
+                assertEquals(previous == null ? PositionMap.NO_VALUE : previous, map.put(key, 0, value));
+                randomKey(random, key);
+                Long stored = expected.get(asList(key));
+                assertEquals(stored == null ? PositionMap.NO_VALUE : stored, map.get(key, 0));
+            }
+            assertEquals(expected.size(), map.size());
+            Map<List<Long>, Long> visited = new HashMap<>();
+            map.forEach((k, offset, value) ->
+                    visited.put(asList(Arrays.copyOfRange(k, offset, offset + words)), value));
+            assertEquals(expected, visited);
+
+            map.clear();
+            assertEquals(0, map.size());
+            assertEquals(PositionMap.NO_VALUE, map.get(key, 0));
+        }
+    }
+
+    // small values, so keys repeat and the zero key comes up
+    private static void randomKey(SplittableRandom random, long[] key) {
+        for (int w = 0; w < key.length; w++) {
+            key[w] = random.nextInt(key.length == 1 ? 100_000 : 300);
+        }
+    }
+
+    private static List<Long> asList(long[] key) {
+        return Arrays.stream(key).boxed().toList();
+    }
+}
@@ -0,0 +1,195 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Known game values, a node table too small for the search with and without a spill
+ * file, a run stopped, checkpointed and resumed, and spill files that don't belong to the
+ * run.
+ */
+class ProofNumberSearchTest {
+
+    private static final int SPILL_KEYS = 2000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void threeByThreeIsADraw() throws IOException {
+        assertEquals(Scoreboard.TIE, solve(3, 3, 16));
+    }
+
+    @Test
+    void fourByFourThreeInARowIsAnXWin() throws IOException {
+        assertEquals(Scoreboard.X_WINS, solve(4, 3, 16));
+    }
+
+    @Test
+    void fourByFourIsADraw() throws IOException {
+        assertEquals(Scoreboard.TIE, solve(4, 4, 20));
+    }
+
+    @Test
+    void findsAForcedWinForO() throws IOException {
+        // o has to block the bottom row at (2, 0), and the block forks column 0 and a diagonal
+        BackEnd board = new BitBoard(3, 3, 3);
+        board.setPlayer('x');
+        board.placeMark(0, 1);
+        board.setPlayer('o');
+        board.placeMark(1, 1);
+        board.setPlayer('x');
+        board.placeMark(2, 1);
+        board.setPlayer('o');
+        board.placeMark(0, 0);
+        board.setPlayer('x');
+        board.placeMark(2, 2);
+        board.setPlayer('o');
+        try (ProofTable table = new ProofTable(16)) {
+            ProofNumberSearch solver = new ProofNumberSearch(table);
+            assertEquals(ProofNumberSearch.PROVEN, solver.prove(board, 'o'));
+            assertEquals(ProofNumberSearch.DISPROVEN, solver.prove(board, 'x'));
+        }
+        // the caller's board is left alone
+        assertEquals(5, board.getMarkCount());
+    }
+
+    @Test
+    void smallTableStillSolves() throws IOException {
+        try (ProofTable table = new ProofTable(10)) {
+            assertEquals(Scoreboard.X_WINS, new ProofNumberSearch(table).solve(new BitBoard(4, 4, 3)));
+        }
+    }
+
+    @Test
+    void spillFileHoldsWhatTheHeapCannot() throws IOException {
+        try (ProofTable table = new ProofTable(10, dir.resolve("spill"), 18, 4, 4, 4, false)) {
+            ProofNumberSearch solver = new ProofNumberSearch(table);
+            assertEquals(Scoreboard.TIE, solver.solve(new BitBoard(4, 4, 4)));
+            assertTrue(table.getSpilled() > 0);
+            assertTrue(table.getSpillHits() > 0);
+        }
+    }
+
+    @Test
+    void resumedRunGivesTheSameAnswer() throws IOException {
+        Path checkpoint = dir.resolve("checkpoint");
+        long stoppedAt;
+        try (ProofTable table = new ProofTable(18)) {
+            ProofNumberSearch solver = new ProofNumberSearch(table);
+            solver.setTimeBudget(100);
+            assertEquals(ProofNumberSearch.UNSOLVED, solver.solve(new BitBoard(4, 4, 4)));
+            solver.saveCheckpoint(checkpoint);
+            stoppedAt = solver.getNodes();
+        }
+        try (ProofTable table = new ProofTable(18)) {
+            ProofNumberSearch solver = new ProofNumberSearch(table);
+            solver.resume(checkpoint, 4, 4);
+            assertEquals(stoppedAt, solver.getNodes());
+            assertEquals(Scoreboard.TIE, solver.solve(new BitBoard(4, 4, 4)));
+            assertTrue(solver.getNodes() > stoppedAt);
+        }
+        try (ProofTable table = new ProofTable(18)) {
+            ProofNumberSearch solver = new ProofNumberSearch(table);
+            assertThrows(IOException.class, () -> solver.resume(checkpoint, 4, 3));
+        }
+    }
+
+    @Test
+    void winLengthsDontShareProofs() throws IOException {
+        try (ProofTable table = new ProofTable(16)) {
+            ProofNumberSearch solver = new ProofNumberSearch(table);
+            assertEquals(Scoreboard.TIE, solver.solve(new BitBoard(4, 4, 4)));
+            assertEquals(Scoreboard.X_WINS, solver.solve(new BitBoard(4, 4, 3)));
+        }
+    }
+
+    @Test
+    void resumingKeepsTheSpillFile() throws IOException {
+        Path spill = dir.resolve("spill");
+        fillSpill(spill);
+        // the heap tier would come back from the checkpoint, here only the spilled keys return
+        try (ProofTable table = new ProofTable(10, spill, 14, 4, 4, 4, true)) {
+            assertTrue(countStored(table) > SPILL_KEYS / 4);
+        }
+    }
+
+    @Test
+    void freshRunEmptiesTheSpillFile() throws IOException {
+        Path spill = dir.resolve("spill");
+        fillSpill(spill);
+        try (ProofTable table = new ProofTable(10, spill, 14, 4, 4, 4, false)) {
+            assertEquals(0, countStored(table));
+        }
+    }
+
+    @Test
+    void spillFileForSomethingElseIsRefused() throws IOException {
+        Path spill = dir.resolve("spill");
+        fillSpill(spill);
+        long spilled;
+        try (ProofTable table = new ProofTable(10, spill, 14, 4, 4, 4, true)) {
+            spilled = countStored(table);
+        }
+        assertThrows(IOException.class, () -> new ProofTable(10, spill, 14, 4, 4, 3, true));
+        assertThrows(IOException.class, () -> new ProofTable(10, spill, 14, 5, 5, 4, true));
+        assertThrows(IOException.class, () -> new ProofTable(10, spill, 15, 4, 4, 4, true));
+        Path other = dir.resolve("other");
+        Files.write(other, new byte[100]);
+        assertThrows(IOException.class, () -> new ProofTable(10, other, 14, 4, 4, 4, true));
+        // refused files are left as they were
+        try (ProofTable table = new ProofTable(10, spill, 14, 4, 4, 4, true)) {
+            assertEquals(spilled, countStored(table));
+        }
+    }
+
+    @Test
+    void finishedGamesAreRejected() throws IOException {
+        BackEnd board = new BackEnd(3, 3);
+        board.setPlayer('x');
+        board.placeMark(0, 0);
+        board.placeMark(0, 1);
+        board.placeMark(0, 2);
+        try (ProofTable table = new ProofTable(10)) {
+            assertThrows(IllegalArgumentException.class, () -> new ProofNumberSearch(table).prove(board, 'x'));
+        }
+    }
+
+    // enough keys through a 1024 slot heap tier that most of them go to the spill file
+    private static void fillSpill(Path spill) throws IOException {
+        try (ProofTable table = new ProofTable(10, spill, 14, 4, 4, 4, false)) {
+            for (long key = 1; key <= SPILL_KEYS; key++) {
+                table.put(spillKey(key), 1, (int) key, key);
+            }
+            assertTrue(table.getSpilled() > 0);
+        }
+    }
+
+    // keys put by fillSpill still found, in either tier
+    private static long countStored(ProofTable table) {
+        long found = 0;
+        for (long key = 1; key <= SPILL_KEYS; key++) {
+            if (table.get(spillKey(key)) != ProofTable.NO_ENTRY) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static long spillKey(long key) {
+        return key * 0xD1B54A32D192ED03L;
+    }
+
+    private static int solve(int size, int winLength, int heapBits) throws IOException {
+        try (ProofTable table = new ProofTable(heapBits)) {
+            return new ProofNumberSearch(table).solve(new BitBoard(size, size, winLength));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The evaluator updated move by move must agree with one rebuilt from the board, and both
+ * with live windows counted by scanning every window.
+ */
+class ThreatEvaluatorTest {
+
+    @Test
+    void centerOfAnEmptyBoard() {
+        BackEnd board = new BackEnd(3, 3);
+        ThreatEvaluator evaluator = new ThreatEvaluator();
+        board.setMoveListener(evaluator);
+        board.setPlayer('x');
+        board.placeMark(1, 1);
+        assertEquals(4, evaluator.getLiveWindows('x', 1));
+        assertEquals(0, evaluator.getLiveWindows('o', 1));
+        board.setPlayer('o');
+        board.placeMark(0, 0);
+        // o's corner kills x's diagonal and starts a row and a column
+        assertEquals(3, evaluator.getLiveWindows('x', 1));
+        assertEquals(2, evaluator.getLiveWindows('o', 1));
+        assertEquals(-evaluator.evaluate('x'), evaluator.evaluate('o'));
+    }
+
+    @Test
+    void incrementalMatchesRebuildOnCharBoards() {
+        check(new BackEnd(3, 3, 3), 1);
+        check(new BackEnd(5, 5, 4), 2);
+        check(new BackEnd(7, 7, 5), 3);
+        check(new BackEnd(4, 6, 3), 4);
+    }
+
+    @Test
+    void incrementalMatchesRebuildOnBitBoards() {
+        check(new BitBoard(4, 4, 4), 5);
+        check(new BitBoard(6, 6, 4), 6);
+        check(new BitBoard(8, 8, 5), 7);
+    }
+
+    // random placing, clearing any mark, undo and redo, with a full comparison after each
+    private static void check(BackEnd board, long seed) {
+        int rows = board.getNumRows();
+        int columns = board.getNumColumns();
+        SplittableRandom random = new SplittableRandom(seed);
+        ThreatEvaluator evaluator = new ThreatEvaluator();
+        board.setMoveListener(evaluator);
+        BackEnd scratch = board.copy();
+        for (int game = 0; game < 200; game++) {
+            board.initializeBoard(rows, columns);
+            board.setPlayer('x');
+            for (int step = 0; step < 100; step++) {
+                int choice = random.nextInt(10);
+                if (choice < 5 && !board.isBoardFull()) {
+                    int cell = board.randomEmptyCell(random);
+                    board.setPlayer(random.nextBoolean() ? 'x' : 'o');
+                    board.placeMark(cell / columns, cell % columns);
+                } else if (choice < 8 && board.getMarkCount() > 0) {
+                    int cell = board.getHistoryMove(random.nextInt(board.getHistoryLength()));
+                    board.clearMark(cell / columns, cell % columns);
+                } else if (choice == 8) {
+                    board.undo();
+                } else {
+                    board.redo();
+                }
+                assertAgrees(board, evaluator);
+            }
+            // copyFrom replaces the whole position and resets the listener
+            scratch.copyFrom(board);
+            board.initializeBoard(rows, columns);
+            board.copyFrom(scratch);
+            assertAgrees(board, evaluator);
+        }
+    }
+
+    private static void assertAgrees(BackEnd board, ThreatEvaluator evaluator) {
+        ThreatEvaluator rebuilt = new ThreatEvaluator();
+        rebuilt.positionReset(board);
+        int winLength = board.getWinLength();
+        int[][] scanned = scanLiveWindows(board);
+        for (int marks = 1; marks <= winLength; marks++) {
+            assertEquals(scanned[0][marks], rebuilt.getLiveWindows('x', marks));
+            assertEquals(scanned[1][marks], rebuilt.getLiveWindows('o', marks));
+            assertEquals(scanned[0][marks], evaluator.getLiveWindows('x', marks));
+            assertEquals(scanned[1][marks], evaluator.getLiveWindows('o', marks));
+        }
+        assertEquals(rebuilt.evaluate('x'), evaluator.evaluate('x'));
+        assertEquals(rebuilt.evaluate('o'), evaluator.evaluate('o'));
+    }
+
+    // live windows of x (row 0) and o (row 1) by mark count, straight from the squares
+    private static int[][] scanLiveWindows(BackEnd board) {
+        int winLength = board.getWinLength();
+        int[][] live = new int[2][winLength + 1];
+        char[][] squares = board.getBoard();
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int[] d : directions) {
+            for (int i = 0; i < board.getNumRows(); i++) {
+                for (int j = 0; j < board.getNumColumns(); j++) {
+                    int endRow = i + d[0] * (winLength - 1);
+                    int endCol = j + d[1] * (winLength - 1);
+                    if (endRow < 0 || endRow >= board.getNumRows() || endCol < 0 || endCol >= board.getNumColumns()) {
+                        continue;
+                    }
+                    int x = 0;
+                    int o = 0;
+                    for (int n = 0; n < winLength; n++) {
+                        char mark = squares[i + d[0] * n][j + d[1] * n];
+                        x += mark == 'x' ? 1 : 0;
+                        o += mark == 'o' ? 1 : 0;
+                    }
+                    if (o == 0 && x > 0) {
+                        live[0][x]++;
+                    } else if (x == 0 && o > 0) {
+                        live[1][o]++;
+                    }
+                }
+            }
+        }
+        return live;
+    }
+}
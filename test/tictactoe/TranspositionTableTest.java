@@ -0,0 +1,60 @@
+package tictactoe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Entries come back from the table with every field intact, including moves past the 254
+ * squares the move field used to hold, and boards too big for it are refused.
+ */
+class TranspositionTableTest {
+
+    @Test
+    void fieldsRoundTrip() {
+        TranspositionTable table = new TranspositionTable(10);
+        int[] moves = {-1, 0, 253, 254, 255, 300, TranspositionTable.MAX_CELLS - 1};
+        int[] bounds = {TranspositionTable.EXACT, TranspositionTable.LOWER_BOUND, TranspositionTable.UPPER_BOUND};
+        int[] scores = {0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE + 1, -123456};
+        long key = 1;
+        for (int move : moves) {
+            for (int bound : bounds) {
+                for (int score : scores) {
+                    for (int depth : new int[] {0, 1, 17, 254}) {
+                        key = key * 0x9E3779B97F4A7C15L + 1;
+                        // empty each time, so no deeper entry turns the store away
+                        table.clear();
+                        table.store(key, depth, bound, score, move);
+                        long entry = table.probe(key);
+                        String what = move + " " + bound + " " + score + " " + depth;
+                        assertEquals(move, TranspositionTable.move(entry), what);
+                        assertEquals(bound, TranspositionTable.bound(entry), what);
+                        assertEquals(score, TranspositionTable.score(entry), what);
+                        assertEquals(depth, TranspositionTable.depth(entry), what);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void newerSearchesStillReplaceDeeperEntries() {
+        TranspositionTable table = new TranspositionTable(4);
+        table.store(5, 10, TranspositionTable.EXACT, 7, 300);
+        table.store(5, 2, TranspositionTable.EXACT, 8, 301);
+        assertEquals(300, TranspositionTable.move(table.probe(5)));
+        for (int i = 0; i < 300; i++) {
+            table.newSearch();
+        }
+        table.store(5, 2, TranspositionTable.EXACT, 8, 301);
+        assertEquals(301, TranspositionTable.move(table.probe(5)));
+    }
+
+    @Test
+    void searchRefusesBoardsTooBigForTheTable() {
+        BackEnd board = new BackEnd(1, TranspositionTable.MAX_CELLS + 1, 5);
+        board.setPlayer('x');
+        assertThrows(IllegalArgumentException.class, () -> new AlphaBetaSearch(10).selectMove(board));
+    }
+}